@@ -0,0 +1,88 @@
+#!/usr/bin/env bash
+#
+#     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+#
+#     This program is free software: you can redistribute it and/or modify
+#     it under the terms of the GNU General Public License as published by
+#     the Free Software Foundation, either version 3 of the License, or
+#     (at your option) any later version.
+#
+#     This program is distributed in the hope that it will be useful,
+#     but WITHOUT ANY WARRANTY; without even the implied warranty of
+#     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#     GNU General Public License for more details.
+#
+#     You should have received a copy of the GNU General Public License
+#     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+#
+
+# Measures the wall-clock time of a single-diagram CLI render, from JVM start to exit:
+#   - through the GUI main class, which loads Swing before dispatching to the CLI
+#   - through the Swing-free CLI main class
+#   - through the CLI main class with the class-data-sharing archive built by `mvn package -Pcds`, or created here by
+#     the same training run when there isn't one yet
+#   - as above, compiled by C1 only, as a single render is over before C2 pays for itself
+#
+# Usage: scripts/cli-startup-benchmark.sh [runs] [input.seq]
+# JAVA, JAVA_OPTS, JAR and ARCHIVE may be set to override the defaults.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-10}
+INPUT=${2:-scripts/cds-training.seq}
+JAVA=${JAVA:-java}
+JAVA_OPTS=${JAVA_OPTS:---enable-preview}
+# the archive is only used with the classpath it was created with, i.e. the absolute jar path
+JAR=${JAR:-$PWD/target/sequencer-1.0-SNAPSHOT-jar-with-dependencies.jar}
+ARCHIVE=${ARCHIVE:-$PWD/target/sequencer-cli.jsa}
+OUTPUT=$(mktemp --suffix=.png)
+trap 'rm -f "$OUTPUT"' EXIT
+
+if [[ ! -f "$JAR" ]]; then
+    echo "No jar at $JAR, run 'mvn package -Pcds' first" >&2
+    exit 1
+fi
+
+# run a command RUNS times, printing the mean and fastest time in milliseconds
+measure() {
+    local label=$1
+    shift
+    local total=0
+    local fastest=
+    for ((run = 0; run < RUNS; run++)); do
+        local start end elapsed
+        start=$(date +%s%N)
+        "$@" > /dev/null 2>&1
+        end=$(date +%s%N)
+        elapsed=$(((end - start) / 1000000))
+        total=$((total + elapsed))
+        if [[ -z "$fastest" || $elapsed -lt $fastest ]]; then
+            fastest=$elapsed
+        fi
+    done
+    printf '%-24s mean %5d ms, fastest %5d ms (%d runs)\n' "$label" $((total / RUNS)) "$fastest" "$RUNS"
+}
+
+# shellcheck disable=SC2086
+measure "gui main" "$JAVA" $JAVA_OPTS -Djava.awt.headless=true -cp "$JAR" org.brokn.sequence.gui.SequenceDialog -i "$INPUT" -o "$OUTPUT"
+# shellcheck disable=SC2086
+measure "cli main" "$JAVA" $JAVA_OPTS -cp "$JAR" org.brokn.sequence.cli.SequencerCli -i "$INPUT" -o "$OUTPUT"
+
+if [[ ! -f "$ARCHIVE" ]]; then
+    # the classes loaded rendering the training diagram are dumped to the archive as the JVM exits
+    echo "No archive at $ARCHIVE, creating it" >&2
+    # shellcheck disable=SC2086
+    "$JAVA" $JAVA_OPTS -XX:ArchiveClassesAtExit="$ARCHIVE" -cp "$JAR" org.brokn.sequence.cli.SequencerCli \
+        -i scripts/cds-training.seq -o "$OUTPUT" > /dev/null 2>&1
+    if [[ ! -f "$ARCHIVE" ]]; then
+        echo "Failed to create the archive; the JVM needs to support -XX:ArchiveClassesAtExit (JDK 13+)" >&2
+        exit 1
+    fi
+fi
+
+# shellcheck disable=SC2086
+measure "cli main + cds archive" "$JAVA" $JAVA_OPTS -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto -cp "$JAR" org.brokn.sequence.cli.SequencerCli -i "$INPUT" -o "$OUTPUT"
+# shellcheck disable=SC2086
+measure "cli main + cds + c1" "$JAVA" $JAVA_OPTS -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto -XX:TieredStopAtLevel=1 -cp "$JAR" org.brokn.sequence.cli.SequencerCli -i "$INPUT" -o "$OUTPUT"
@@ -0,0 +1,220 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.cli;
+
+import com.google.common.flogger.FluentLogger;
+import com.google.common.io.MoreFiles;
+import org.brokn.sequence.lexer.CompiledDiagram;
+import org.brokn.sequence.rendering.utils.TextMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Renders, or compiles, many diagrams in one JVM on a worker pool sized to the cores.
+ * A failure is reported against its file and does not stop the others.
+ */
+class BatchRenderer {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+    static final String SOURCE_EXTENSION = ".seq";
+
+    static final String IMAGE_EXTENSION = ".png";
+
+    // the inputs taken from a directory
+    private static final String DIRECTORY_GLOB = "*.{seq,seqb}";
+
+    private final boolean compile;
+
+    // the extension of the images written in a batch, .png or .svg
+    private final String imageExtension;
+
+    private final int threads;
+
+    BatchRenderer(boolean compile, String imageExtension, int threads) {
+        this.compile = compile;
+        this.imageExtension = imageExtension;
+        this.threads = threads;
+    }
+
+    /**
+     * Whether the inputs name more than one diagram, i.e. there is more than one, or one is a directory or a glob.
+     */
+    static boolean isBatch(String[] inputs) {
+        return inputs.length > 1 || Files.isDirectory(Paths.get(inputs[0])) || isGlob(inputs[0]);
+    }
+
+    /**
+     * Render each input; inputs are files, directories (every .seq and .seqb file in them) or globs in the file name,
+     * such as docs/*.seq. In a batch the output is a directory, which gets an output file named after each input.
+     * Returns the number of inputs which failed.
+     */
+    int run(String[] inputs, Path output) {
+        boolean batch = isBatch(inputs);
+        Map<Path, Path> outputsByInput = new LinkedHashMap<>();
+        int failures = 0;
+        try {
+            if (batch) {
+                Files.createDirectories(output);
+            }
+        } catch (IOException ex) {
+            System.err.println(output + ": error: cannot create output directory: " + ex.getMessage());
+            return inputs.length;
+        }
+
+        // plan every output before rendering any, so that a clash is reported rather than overwritten
+        Map<Path, Path> inputsByOutput = new HashMap<>();
+        for (String input : inputs) {
+            List<Path> paths;
+            try {
+                paths = expand(input);
+            } catch (IOException ex) {
+                System.err.println(input + ": error: " + ex.getMessage());
+                failures++;
+                continue;
+            }
+
+            for (Path path : paths) {
+                Path outputFile = batch ? output.resolve(outputFileName(path)) : output;
+                Path previousInput = inputsByOutput.putIfAbsent(outputFile.toAbsolutePath().normalize(), path);
+                if (previousInput != null) {
+                    System.err.println(path + ": error: output [" + outputFile + "] is also the output of [" + previousInput + "]");
+                    failures++;
+                } else {
+                    outputsByInput.put(path, outputFile);
+                }
+            }
+        }
+
+        return failures + renderAll(outputsByInput);
+    }
+
+    private int renderAll(Map<Path, Path> outputsByInput) {
+        if (outputsByInput.isEmpty()) {
+            // every input was missing, matched nothing or clashed, each already reported
+            System.err.println("error: no diagrams to render");
+            return 0;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, outputsByInput.size())));
+        try {
+            Map<Path, Future<?>> results = new LinkedHashMap<>();
+            outputsByInput.forEach((input, outputFile) -> results.put(input, executor.submit(renderTask(input, outputFile))));
+
+            // report in input order, whatever order the files finish in
+            int failures = 0;
+            for (Map.Entry<Path, Future<?>> result : results.entrySet()) {
+                try {
+                    result.getValue().get();
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    System.err.println(result.getKey() + ": error: " + (cause.getMessage() != null ? cause.getMessage() : cause.toString()));
+                    logger.atFine().withCause(cause).log("Failed to render [%s]", result.getKey());
+                    failures++;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return failures + 1;
+                }
+            }
+
+            logger.atInfo().log("Rendered [%d] of [%d] diagrams", outputsByInput.size() - failures, outputsByInput.size());
+            logger.atFine().log("Text metrics cache: %s", TextMetrics.shared());
+            return failures;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Callable<Void> renderTask(Path input, Path outputFile) {
+        return () -> {
+            if (compile) {
+                HeadlessRenderer.compile(input.toString(), outputFile);
+            } else {
+                HeadlessRenderer.render(input.toString(), outputFile);
+            }
+            return null;
+        };
+    }
+
+    private String outputFileName(Path input) {
+        String baseName = MoreFiles.getNameWithoutExtension(input);
+        return baseName + (compile ? CompiledDiagram.FILE_EXTENSION : imageExtension);
+    }
+
+    /**
+     * The files named by a single input, in name order for a directory or glob.
+     */
+    static List<Path> expand(String input) throws IOException {
+        Path path = Paths.get(isGlob(input) ? globDirectory(input) : input);
+        if (!isGlob(input) && !Files.isDirectory(path)) {
+            if (!Files.exists(path)) {
+                throw new IOException("no such file or directory");
+            }
+            return List.of(path);
+        }
+        if (!Files.isDirectory(path)) {
+            throw new IOException("no such directory [" + path + "]");
+        }
+
+        String glob = isGlob(input) ? globFileName(input) : DIRECTORY_GLOB;
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> directory = Files.newDirectoryStream(path, glob)) {
+            for (Path file : directory) {
+                if (Files.isRegularFile(file)) {
+                    paths.add(file);
+                }
+            }
+        }
+        if (paths.isEmpty()) {
+            throw new IOException("no files match [" + glob + "] in [" + path + "]");
+        }
+        paths.sort(null);
+        return paths;
+    }
+
+    private static boolean isGlob(String input) {
+        return input.chars().anyMatch(c -> c == '*' || c == '?' || c == '[' || c == '{');
+    }
+
+    private static String globFileName(String input) {
+        int separator = Math.max(input.lastIndexOf('/'), input.lastIndexOf(File.separatorChar));
+        return input.substring(separator + 1);
+    }
+
+    private static String globDirectory(String input) {
+        String directory = input.substring(0, input.length() - globFileName(input).length());
+        return directory.isEmpty() ? "." : directory;
+    }
+
+}
@@ -19,8 +19,10 @@ package org.brokn.sequence.cli;
 
 import com.google.common.flogger.FluentLogger;
 import org.apache.commons.cli.*;
+import org.brokn.sequence.lexer.ParseLog;
+import org.brokn.sequence.rendering.svg.SvgRenderer;
 
-import java.nio.file.Files;
+import java.io.IOException;
 import java.nio.file.Paths;
 
 /**
@@ -30,6 +32,12 @@ public class HeadlessCli {
 
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
+    public static final int EXIT_OK = 0;
+
+    public static final int EXIT_FAILED = 1;
+
+    public static final int EXIT_USAGE = 2;
+
     private final Options options = new Options();
 
     public HeadlessCli() {
@@ -40,36 +48,116 @@ public class HeadlessCli {
         // input file option
         final Option inputOption = Option.builder("i")
                 .longOpt("input")
-                .desc("input .seq file")
-                .hasArg()
-                .required()
+                .desc("input .seq or compiled .seqb files, directories of them, or globs such as 'docs/*.seq'")
+                .hasArgs()
                 .build();
 
         // output file option
         final Option outputOption = Option.builder("o")
                 .longOpt("output")
-                .desc("output .png file")
+                .desc("output .png or .svg file, or .seqb file with --compile; the output directory when there are several inputs")
+                .hasArg()
+                .build();
+
+        // compile option
+        final Option compileOption = Option.builder("c")
+                .longOpt("compile")
+                .desc("compile the input to a .seqb file, which loads without parsing, instead of rendering it")
+                .build();
+
+        // svg option, for the images written to an output directory
+        final Option svgOption = Option.builder()
+                .longOpt("svg")
+                .desc("when there are several inputs, render each to a .svg file rather than a .png")
+                .build();
+
+        // verbose logging option
+        final Option verboseOption = Option.builder("v")
+                .longOpt("verbose")
+                .desc("log the full parsed model, as well as the per-parse summary")
+                .build();
+
+        // render daemon options
+        final Option serveOption = Option.builder()
+                .longOpt("serve")
+                .desc("run as a render daemon on a localhost port, instead of rendering files")
+                .build();
+        final Option portOption = Option.builder()
+                .longOpt("port")
+                .desc("port for --serve, default " + RenderServer.DEFAULT_PORT + "; 0 picks a free port")
+                .hasArg()
+                .build();
+        final Option maxConcurrentOption = Option.builder()
+                .longOpt("max-concurrent")
+                .desc("diagrams rendered at once by --serve, default the number of cores")
+                .hasArg()
+                .build();
+        final Option timeoutOption = Option.builder()
+                .longOpt("timeout")
+                .desc("milliseconds before a --serve request is abandoned, default " + RenderServer.DEFAULT_TIMEOUT_MILLIS)
                 .hasArg()
-                .required()
                 .build();
 
         options.addOption(inputOption);
         options.addOption(outputOption);
+        options.addOption(compileOption);
+        options.addOption(svgOption);
+        options.addOption(verboseOption);
+        options.addOption(serveOption);
+        options.addOption(portOption);
+        options.addOption(maxConcurrentOption);
+        options.addOption(timeoutOption);
     }
 
-    public void run(String[] args) {
+    /**
+     * Run the command line, returning the process exit code: non-zero only if an input failed, or the arguments are invalid.
+     */
+    public int run(String[] args) {
         final CliValidationResult cliValidationResult = validateParameters(args);
-        if (cliValidationResult.isValid()) {
-            // render diagram to the output file
-            HeadlessRenderer renderer = new HeadlessRenderer();
-            renderer.draw(cliValidationResult);
-
-        } else {
-            // invalid args; show usage and exit
+        if (!cliValidationResult.isValid()) {
+            // invalid args; show usage
             showUsage();
+            return EXIT_USAGE;
+        }
+
+        CommandLine cmd = cliValidationResult.getCmd();
+        if (cmd.hasOption("v")) {
+            ParseLog.setVerbose(true);
+        }
+
+        if (cmd.hasOption("serve")) {
+            return serve(cmd);
         }
 
-        System.exit(0);
+        // render, or compile, each diagram to the output file or directory
+        String imageExtension = cmd.hasOption("svg") ? SvgRenderer.FILE_EXTENSION : BatchRenderer.IMAGE_EXTENSION;
+        BatchRenderer batchRenderer = new BatchRenderer(cmd.hasOption("c"), imageExtension, Runtime.getRuntime().availableProcessors());
+        int failures = batchRenderer.run(cmd.getOptionValues("i"), Paths.get(cmd.getOptionValue("o")));
+        return failures == 0 ? EXIT_OK : EXIT_FAILED;
+    }
+
+    private int serve(CommandLine cmd) {
+        try {
+            int port = Integer.parseInt(cmd.getOptionValue("port", String.valueOf(RenderServer.DEFAULT_PORT)));
+            int maxConcurrent = Integer.parseInt(cmd.getOptionValue("max-concurrent", String.valueOf(Runtime.getRuntime().availableProcessors())));
+            long timeoutMillis = Long.parseLong(cmd.getOptionValue("timeout", String.valueOf(RenderServer.DEFAULT_TIMEOUT_MILLIS)));
+            if (maxConcurrent < 1 || timeoutMillis < 1) {
+                throw new NumberFormatException("--max-concurrent and --timeout must be positive");
+            }
+
+            RenderServer server = new RenderServer(port, maxConcurrent, timeoutMillis);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            System.out.println("Listening on localhost:" + server.bind());
+            server.serve();
+            return EXIT_OK;
+
+        } catch (NumberFormatException ex) {
+            System.err.println("error: " + ex.getMessage());
+            return EXIT_USAGE;
+        } catch (IOException ex) {
+            System.err.println("error: " + ex.getMessage());
+            return EXIT_FAILED;
+        }
     }
 
     private void showUsage() {
@@ -83,18 +171,9 @@ public class HeadlessCli {
             CommandLineParser parser = new DefaultParser();
             CommandLine cmd = parser.parse(options, args);
 
-            if (cmd.hasOption("i") && cmd.hasOption("o")) {
-                // check input file exists
-                boolean exists = Files.exists(Paths.get(cmd.getOptionValue("i")));
-                if (!exists) {
-                    logger.atSevere().log("file doesn't exist, fool");
-                    return new CliValidationResult(false, "Input file does not exist", cmd);
-
-                } else {
-                    // proceed, bro.
-                    logger.atInfo().log("proceed, bro.");
-                    return new CliValidationResult(true, "OK", cmd);
-                }
+            if (cmd.hasOption("serve") || (cmd.hasOption("i") && cmd.hasOption("o"))) {
+                // missing inputs are reported, and fail, per file
+                return new CliValidationResult(true, "OK", cmd);
 
             } else {
                 return new CliValidationResult(false, "Missing args", null);
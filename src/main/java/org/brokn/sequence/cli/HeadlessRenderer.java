@@ -17,56 +17,68 @@
 
 package org.brokn.sequence.cli;
 
+import com.google.common.flogger.FluentLogger;
+import org.brokn.sequence.lexer.CompiledDiagram;
+import org.brokn.sequence.lexer.Diagnostic;
 import org.brokn.sequence.lexer.Lexer;
-import org.brokn.sequence.rendering.Canvas;
+import org.brokn.sequence.lexer.ParseResult;
+import org.brokn.sequence.rendering.ImageRenderer;
 import org.brokn.sequence.rendering.RenderableDiagram;
+import org.brokn.sequence.rendering.svg.SvgRenderer;
 
-import javax.swing.*;
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
-
-import static org.brokn.sequence.gui.DialogUtils.exportAsImage;
 
 public class HeadlessRenderer {
 
-    void draw(HeadlessCli.CliValidationResult cliValidationResult) {
-        // Read in .seq file
-        String path = cliValidationResult.getCmd().getOptionValue("i");
-        List<String> lines = new ArrayList<>();
-        try {
-            lines.addAll(Files.readAllLines(Paths.get(path)));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
-        // create parser etc
-        Lexer lexer = new Lexer();
-        final RenderableDiagram parse = lexer.parse(String.join("\n", lines));
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
-        // rendering env
-        // todo change rendering to not require JFrame/JPanel; create Graphics2D from BufferedImage instead?
-        JFrame frame = new JFrame("");
-        Canvas canvas = new Canvas();
+    /**
+     * Render the input to a .png file, or to a .svg file when the output is named .svg, measuring, drawing and encoding
+     * off-screen; no window or display is needed.
+     */
+    static void render(String path, Path outputFile) throws IOException {
+        RenderableDiagram diagram = load(path).getDiagram();
+        if (SvgRenderer.isSvgFile(outputFile.toFile())) {
+            SvgRenderer.writeSvg(diagram, outputFile.toFile());
+        } else {
+            ImageRenderer.writePng(diagram, outputFile.toFile());
+        }
+    }
 
-        frame.setVisible(true);
-        frame.setContentPane(canvas);
+    /**
+     * Compile the input to a .seqb file.
+     */
+    static void compile(String path, Path outputFile) throws IOException {
+        CompiledDiagram.write(load(path).getDiagram(), outputFile);
+        logger.atInfo().log("Compiled [%s] to [%s]", path, outputFile);
+    }
 
-        frame.setPreferredSize(parse.computeDiagramSize(canvas.getGraphics(), false));
-        canvas.setPreferredSize(parse.computeDiagramSize(canvas.getGraphics(), false));
-        frame.pack();
+    /**
+     * Load the input, either a compiled .seqb diagram or .seq source, printing any diagnostics.
+     */
+    static ParseResult load(String path) throws IOException {
+        Path inputPath = Paths.get(path);
+        final ParseResult parseResult;
+        if (CompiledDiagram.isCompiledDiagram(inputPath)) {
+            parseResult = CompiledDiagram.read(inputPath);
 
-        canvas.updateModel(parse);
-        parse.draw(canvas.getGraphics());
+        } else {
+            // read a line at a time, or memory-mapped when very large; a file is only parsed once per run, so isn't cached
+            parseResult = new Lexer().parse(inputPath);
+        }
 
-        // sort out output file
-        String outputFileValue = cliValidationResult.getCmd().getOptionValue("o");
-        File outFile = Paths.get(outputFileValue).toFile();
+        parseResult.getDiagnostics().forEach(diagnostic -> System.err.println(describe(path, diagnostic)));
+        return parseResult;
+    }
 
-        exportAsImage(outFile, canvas);
+    /**
+     * Diagnostics are printed in the usual file:line:column form, so that editors can link them back to the source.
+     */
+    static String describe(String path, Diagnostic diagnostic) {
+        String location = diagnostic.getColumn() > 0 ? diagnostic.getLineNumber() + ":" + diagnostic.getColumn() : String.valueOf(diagnostic.getLineNumber());
+        return path + ":" + location + ": " + diagnostic.getSeverity().name().toLowerCase() + ": " + diagnostic.getMessage();
     }
 
 }
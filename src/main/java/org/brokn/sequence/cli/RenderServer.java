@@ -0,0 +1,284 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.cli;
+
+import com.google.common.flogger.FluentLogger;
+import org.brokn.sequence.lexer.CompiledDiagram;
+import org.brokn.sequence.lexer.Lexer;
+import org.brokn.sequence.lexer.ParseCache;
+import org.brokn.sequence.rendering.ImageRenderer;
+import org.brokn.sequence.rendering.RenderableDiagram;
+import org.brokn.sequence.rendering.svg.SvgRenderer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Long-running render daemon on a localhost TCP port, so that a preview service pays for JVM start-up, JIT warm-up,
+ * font loading and the parse cache once rather than per diagram.
+ * <p>
+ * A connection carries any number of requests, each answered in turn. Big-endian:
+ * <pre>
+ * request      format (modified UTF-8 string, "png", "svg" or "seqb"), i32 source length, UTF-8 .seq source
+ * response     u8 status, i32 body length, body: the encoded diagram when OK, otherwise a UTF-8 error message
+ * </pre>
+ * At most maxConcurrent diagrams render at once, with up to as many again queued; beyond that a request is
+ * answered BUSY straight away. A request which has not rendered within the timeout is cancelled and answered TIMEOUT.
+ * A PNG stops drawing at the next band of rows once cancelled; parsing, layout and SVG writing aren't interruptible,
+ * so a cancelled request holds its worker until they finish.
+ * <p>
+ * Bodies are encoded in memory before they're sent, so a PNG which would have to be drawn in strips, i.e. one whose
+ * pixels need more than {@link ImageRenderer#getMaxImageBytes()}, is answered ERROR; such diagrams are rendered with
+ * the CLI instead.
+ */
+public class RenderServer {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+    public static final int DEFAULT_PORT = 7878;
+
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+
+    public static final String PNG_FORMAT = "png";
+
+    public static final String SVG_FORMAT = SvgRenderer.SVG_FORMAT;
+
+    public static final String COMPILED_FORMAT = "seqb";
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_ERROR = 1;
+    public static final byte STATUS_BUSY = 2;
+    public static final byte STATUS_TIMEOUT = 3;
+
+    // larger sources are rejected, rather than read onto the heap
+    static final int MAX_SOURCE_BYTES = 64 * 1024 * 1024;
+
+    private final int port;
+    private final long timeoutMillis;
+
+    // diagrams are rendered on a bounded pool, connections are only read and written on their own threads
+    private final ThreadPoolExecutor renderPool;
+    private final ExecutorService connectionPool = Executors.newCachedThreadPool(daemonThreads("render-connection"));
+
+    // parsers are kept per render thread, so they stay warm without being shared
+    private final ThreadLocal<Lexer> lexers = ThreadLocal.withInitial(Lexer::new);
+
+    private final RenderFunction renderFunction;
+
+    private volatile ServerSocket serverSocket;
+
+    public RenderServer(int port, int maxConcurrent, long timeoutMillis) {
+        this(port, maxConcurrent, timeoutMillis, null);
+    }
+
+    /**
+     * A server which encodes diagrams with the given function rather than its own, so that tests can control how long
+     * a render takes.
+     */
+    RenderServer(int port, int maxConcurrent, long timeoutMillis, RenderFunction renderFunction) {
+        this.renderFunction = renderFunction != null ? renderFunction : this::render;
+        this.port = port;
+        this.timeoutMillis = timeoutMillis;
+        this.renderPool = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxConcurrent), daemonThreads("render-worker"), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Bind to the loopback address, returning the port, which is chosen by the system if the port given was 0.
+     */
+    public int bind() throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        logger.atInfo().log("Render server listening on [%s]", serverSocket.getLocalSocketAddress());
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accept connections until {@link #stop()} is called.
+     */
+    public void serve() throws IOException {
+        if (serverSocket == null) {
+            bind();
+        }
+
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connectionPool.execute(() -> handleConnection(socket));
+            } catch (SocketException ex) {
+                // closed by stop()
+                if (!serverSocket.isClosed()) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    public void stop() {
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException ex) {
+            logger.atWarning().withCause(ex).log("Failed to close server socket");
+        }
+        connectionPool.shutdownNow();
+        renderPool.shutdownNow();
+    }
+
+    private void handleConnection(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            while (true) {
+                String format;
+                try {
+                    format = in.readUTF();
+                } catch (EOFException ex) {
+                    // client closed the connection between requests
+                    return;
+                }
+
+                int length = in.readInt();
+                if (length < 0 || length > MAX_SOURCE_BYTES) {
+                    respond(out, STATUS_ERROR, "Source length [" + length + "] is not between 0 and " + MAX_SOURCE_BYTES);
+                    return;
+                }
+                byte[] source = new byte[length];
+                in.readFully(source);
+
+                handleRequest(format, new String(source, StandardCharsets.UTF_8), out);
+            }
+        } catch (IOException ex) {
+            logger.atFine().withCause(ex).log("Connection closed");
+        }
+    }
+
+    private void handleRequest(String format, String source, DataOutputStream out) throws IOException {
+        if (!PNG_FORMAT.equals(format) && !SVG_FORMAT.equals(format) && !COMPILED_FORMAT.equals(format)) {
+            respond(out, STATUS_ERROR, "Unknown format [" + format + "]");
+            return;
+        }
+
+        Future<byte[]> result;
+        try {
+            result = renderPool.submit(() -> renderFunction.render(format, source));
+        } catch (RejectedExecutionException ex) {
+            respond(out, STATUS_BUSY, "Server is busy");
+            return;
+        }
+
+        try {
+            byte[] body = result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            out.writeByte(STATUS_OK);
+            out.writeInt(body.length);
+            out.write(body);
+            out.flush();
+        } catch (TimeoutException ex) {
+            result.cancel(true);
+            respond(out, STATUS_TIMEOUT, "Render did not finish within " + timeoutMillis + " ms");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            respond(out, STATUS_ERROR, cause.getMessage() != null ? cause.getMessage() : cause.toString());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", ex);
+        }
+    }
+
+    private byte[] render(String format, String source) throws IOException {
+        RenderableDiagram diagram = ParseCache.shared().get(source, lexers.get()::parse).getDiagram();
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        if (COMPILED_FORMAT.equals(format)) {
+            CompiledDiagram.write(diagram, encoded);
+        } else if (SVG_FORMAT.equals(format)) {
+            checkCancelled();
+            Writer writer = new OutputStreamWriter(encoded, StandardCharsets.UTF_8);
+            SvgRenderer.writeSvg(diagram, writer);
+        } else {
+            // the encoded image is held until it's sent, so one which can't be drawn in one piece isn't drawn at all
+            Dimension size = ImageRenderer.measure(diagram);
+            if (ImageRenderer.isTiled(size)) {
+                throw new IOException("Diagram of [" + size.width + " x " + size.height + "] pixels is too large to render on the server");
+            }
+
+            // parsing doesn't check for interrupts, so a timed out request frees its worker between stages and bands
+            checkCancelled();
+            BufferedImage image = ImageRenderer.renderInterruptibly(diagram);
+            checkCancelled();
+            ImageRenderer.encodePng(image, encoded);
+        }
+        return encoded.toByteArray();
+    }
+
+    /**
+     * Encodes the source of a request in the format asked for.
+     */
+    @FunctionalInterface
+    interface RenderFunction {
+        byte[] render(String format, String source) throws IOException;
+    }
+
+    private static void checkCancelled() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Cancelled");
+        }
+    }
+
+    private static void respond(DataOutputStream out, byte status, String message) throws IOException {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        out.writeByte(status);
+        out.writeInt(body.length);
+        out.write(body);
+        out.flush();
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.cli;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.logging.LogManager;
+
+/**
+ * Command line entry point, which only loads the lexer, model and rendering classes.
+ * {@link org.brokn.sequence.gui.SequenceDialog#main(String[])} also dispatches to the command line, but only after
+ * loading Swing; this class never does, and is the one the class-data-sharing archive is trained with.
+ */
+public final class SequencerCli {
+
+    private SequencerCli() {
+    }
+
+    public static void main(String[] args) {
+        // rendering is always off-screen
+        System.setProperty("java.awt.headless", "true");
+
+        try (InputStream stream = ClassLoader.getSystemResourceAsStream("logging.properties")) {
+            LogManager.getLogManager().readConfiguration(stream);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(-1);
+        }
+
+        System.exit(new HeadlessCli().run(args));
+    }
+
+}
@@ -19,6 +19,9 @@ package org.brokn.sequence.gui;
 
 import com.google.common.flogger.FluentLogger;
 import org.brokn.sequence.rendering.Canvas;
+import org.brokn.sequence.rendering.ImageRenderer;
+import org.brokn.sequence.rendering.RenderableDiagram;
+import org.brokn.sequence.rendering.svg.SvgRenderer;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
@@ -28,6 +31,11 @@ import java.awt.datatransfer.Clipboard;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 import static javax.swing.JOptionPane.*;
 
@@ -59,14 +67,24 @@ public final class DialogUtils {
         }
     }
 
-    static FileDialogResult openSaveAsDialog(FileNameExtensionFilter fileFilter) {
+    /**
+     * Show a Save As dialog offering each of the filters, the first selected; a new file without an extension is
+     * given the extension of the filter chosen.
+     */
+    static FileDialogResult openSaveAsDialog(FileNameExtensionFilter... fileFilters) {
         JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setFileFilter(fileFilter);
+        for (FileNameExtensionFilter filter : fileFilters) {
+            fileChooser.addChoosableFileFilter(filter);
+        }
+        fileChooser.setFileFilter(fileFilters[0]);
         fileChooser.changeToParentDirectory();
         fileChooser.setMultiSelectionEnabled(false);
 
-        logger.atInfo().log("Showing save file dialog with filter [" + fileFilter + "]");
+        logger.atInfo().log("Showing save file dialog with filters [" + Arrays.toString(fileFilters) + "]");
         if (fileChooser.showSaveDialog(null) == JFileChooser.APPROVE_OPTION) {
+            FileNameExtensionFilter fileFilter = fileChooser.getFileFilter() instanceof FileNameExtensionFilter
+                    ? (FileNameExtensionFilter) fileChooser.getFileFilter()
+                    : fileFilters[0];
             if (fileChooser.getSelectedFile().exists()) {
                 int input = JOptionPane.showConfirmDialog(null, "File already exists, overwrite?", "BUUZZZZZ...", YES_NO_OPTION);
                 switch (input) {
@@ -103,51 +121,128 @@ public final class DialogUtils {
     static boolean isValidClip(Dimension clip) {
         if (clip.width <= 0 || clip.height <= 0) {
             logger.atSevere().log("Clip area too small to create image " + clip);
-            showMessageDialog(null, "Clip area is too small to create Image", "Error", JOptionPane.WARNING_MESSAGE);
             return false;
         }
 
         return true;
     }
 
-    static void copyToClipboard(Canvas canvas) {
-        Dimension clip = canvas.getPreferredSize();
-        logger.atInfo().log("Copy to clipboard, dims: " + clip);
+    private static void showInvalidClip() {
+        showMessageDialog(null, "Clip area is too small to create Image", "Error", JOptionPane.WARNING_MESSAGE);
+    }
 
-        if(isValidClip(clip)) {
-            BufferedImage bImg = new BufferedImage(clip.width, clip.height, BufferedImage.TYPE_INT_RGB);
-            Graphics2D cg = bImg.createGraphics();
-            canvas.paintAll(cg);
+    static void copyToClipboard(Canvas canvas) {
+        // drawn from the diagram, as the canvas may only hold the visible part of it, or not yet hold it at all
+        RenderableDiagram diagram = canvas.getModel();
+        inBackground("Copy to clipboard", () -> {
+            Dimension clip = diagram == null ? new Dimension() : ImageRenderer.measure(diagram);
+            logger.atInfo().log("Copy to clipboard, dims: " + clip);
+            return isValidClip(clip) ? Optional.of(ImageRenderer.render(diagram)) : Optional.<BufferedImage>empty();
+        }, image -> {
+            if (image.isEmpty()) {
+                showInvalidClip();
+                return;
+            }
 
-            TransferableImage transferableImage = new TransferableImage(bImg);
+            TransferableImage transferableImage = new TransferableImage(image.get());
             Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
 
             clipboard.setContents(transferableImage, null);
-        }
+        });
     }
 
     /**
-     * Export the current canvas as an image file.
+     * Export the current canvas as an image file, drawn and encoded off the event thread.
      *
      * @param selectedFile
      */
     public static void exportAsImage(File selectedFile, Canvas canvas) {
-        Dimension clip = canvas.getPreferredSize();
-        logger.atInfo().log("Export to file, dims: " + clip);
-        if (isValidClip(clip)) {
-            BufferedImage bImg = new BufferedImage(clip.width, clip.height, BufferedImage.TYPE_INT_RGB);
-            Graphics2D cg = bImg.createGraphics();
-            canvas.paintAll(cg);
+        RenderableDiagram diagram = canvas.getModel();
+        inBackground("Export to file", () -> writeImage(selectedFile, diagram), written -> {
+            if (!written) {
+                showInvalidClip();
+            }
+        });
+    }
+
+    // false if the diagram is too small to draw; failures to write are logged
+    private static boolean writeImage(File selectedFile, RenderableDiagram diagram) {
+        if (diagram != null && ImageRenderer.isTiled(ImageRenderer.measure(diagram))) {
+            // too big to paint into one image; drawn and encoded a strip at a time instead
             try {
-                logger.atInfo().log("Opening file [" + selectedFile + "] for graphics export");
-                if (ImageIO.write(bImg, "png", selectedFile)) {
-                    logger.atInfo().log("Successfully exported diagram to file [" + selectedFile + "]");
-                }
+                ImageRenderer.writePng(diagram, selectedFile);
+                logger.atInfo().log("Successfully exported diagram to file [" + selectedFile + "]");
             } catch (IOException e) {
                 logger.atSevere().log("Failed to export diagram to file [" + selectedFile + "]");
                 e.printStackTrace();
             }
+            return true;
+        }
+
+        Dimension clip = diagram == null ? new Dimension() : ImageRenderer.measure(diagram);
+        logger.atInfo().log("Export to file, dims: " + clip);
+        if (!isValidClip(clip)) {
+            return false;
+        }
+
+        BufferedImage bImg = ImageRenderer.render(diagram);
+        try {
+            logger.atInfo().log("Opening file [" + selectedFile + "] for graphics export");
+            if (ImageIO.write(bImg, "png", selectedFile)) {
+                logger.atInfo().log("Successfully exported diagram to file [" + selectedFile + "]");
+            }
+        } catch (IOException e) {
+            logger.atSevere().log("Failed to export diagram to file [" + selectedFile + "]");
+            e.printStackTrace();
+        }
+        return true;
+    }
+
+    /**
+     * Export the diagram shown by the canvas as SVG, streamed straight to the file rather than drawn to an image, off
+     * the event thread.
+     */
+    public static void exportAsSvg(File selectedFile, Canvas canvas) {
+        RenderableDiagram diagram = canvas.getModel();
+        if (diagram == null) {
+            logger.atWarning().log("Nothing to export to file [" + selectedFile + "]");
+            return;
         }
+
+        inBackground("Export to file", () -> {
+            try {
+                SvgRenderer.writeSvg(diagram, selectedFile);
+                logger.atInfo().log("Successfully exported diagram to file [" + selectedFile + "]");
+            } catch (IOException | IllegalArgumentException e) {
+                logger.atSevere().log("Failed to export diagram to file [" + selectedFile + "]");
+                e.printStackTrace();
+            }
+            return null;
+        }, ignored -> { });
+    }
+
+    /**
+     * Run the work on a background thread, so that drawing and encoding a large diagram doesn't freeze the editor, and
+     * hand its result to the event thread.
+     */
+    private static <T> void inBackground(String action, Callable<T> work, Consumer<T> onDone) {
+        new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                return work.call();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    onDone.accept(get());
+                } catch (ExecutionException e) {
+                    logger.atSevere().withCause(e.getCause()).log("%s failed", action);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
     }
 
     static class FileDialogResult {
@@ -0,0 +1,99 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.gui;
+
+import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.brokn.sequence.lexer.ParseResult;
+
+import javax.swing.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Parses a document's text off the event thread. A parse starts once the text has been left alone for
+ * {@link #DEBOUNCE_MILLIS}, so typing doesn't queue a parse per keystroke. Only the latest text is parsed, and a result
+ * is only handed on if no newer text arrived while it was parsed. There is one thread, so at most one parse is in
+ * flight and the parser needn't be thread-safe.
+ */
+final class ParseWorker {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+    static final long DEBOUNCE_MILLIS = 150;
+
+    private final Function<String, ParseResult> parser;
+
+    // called on the event thread
+    private final Consumer<ParseResult> onParsed;
+
+    // the thread is let go when idle
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+            new ThreadFactoryBuilder().setNameFormat("document-parse-%d").setDaemon(true).build());
+
+    // the text waiting to be parsed, taken by the parse which starts next
+    private final AtomicReference<String> latest = new AtomicReference<>();
+
+    private ScheduledFuture<?> scheduled;
+
+    ParseWorker(Function<String, ParseResult> parser, Consumer<ParseResult> onParsed) {
+        this.parser = parser;
+        this.onParsed = onParsed;
+        this.executor.setKeepAliveTime(10, TimeUnit.SECONDS);
+        this.executor.allowCoreThreadTimeOut(true);
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Parse the text once it's been left alone for the debounce window, replacing any text still waiting.
+     */
+    synchronized void submit(String text) {
+        this.latest.set(text);
+        if (this.scheduled != null) {
+            this.scheduled.cancel(false);
+        }
+        this.scheduled = this.executor.schedule(this::parseLatest, DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void parseLatest() {
+        String text = this.latest.getAndSet(null);
+        if (text == null) {
+            return;
+        }
+
+        try {
+            ParseResult parseResult = this.parser.apply(text);
+            if (this.latest.get() == null) {
+                SwingUtilities.invokeLater(() -> this.onParsed.accept(parseResult));
+            } else {
+                logger.atFine().log("Dropped parse of text replaced while it was parsed");
+            }
+        } catch (CancellationException ex) {
+            logger.atFine().log("Abandoned interrupted parse");
+        } catch (RuntimeException ex) {
+            logger.atSevere().withCause(ex).log("Failed to parse document");
+        }
+    }
+
+}
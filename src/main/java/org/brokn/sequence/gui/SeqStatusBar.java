@@ -17,10 +17,15 @@
 
 package org.brokn.sequence.gui;
 
+import com.google.common.html.HtmlEscapers;
+import org.brokn.sequence.lexer.Diagnostic;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionListener;
 import java.io.File;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class SeqStatusBar extends JPanel {
 
@@ -28,6 +33,8 @@ public class SeqStatusBar extends JPanel {
 
     private final JLabel fileName = new JLabel("");
 
+    private final JLabel diagnosticsLabel = new JLabel("");
+
     SeqStatusBar(ActionListener exportAsImage, ActionListener copyToClipboard) {
         this.setLayout(new BoxLayout(this, BoxLayout.LINE_AXIS));
 
@@ -54,6 +61,8 @@ public class SeqStatusBar extends JPanel {
 
         leftPanel.add(filePathLabel);
         leftPanel.add(fileName);
+        leftPanel.add(Box.createHorizontalStrut(10));
+        leftPanel.add(diagnosticsLabel);
 
         this.add(leftPanel);
         this.add(Box.createHorizontalGlue());
@@ -73,4 +82,30 @@ public class SeqStatusBar extends JPanel {
         });
     }
 
+    /**
+     * Show the first diagnostic, with the full list in the tooltip.
+     */
+    void setDiagnostics(List<Diagnostic> diagnostics) {
+        SwingUtilities.invokeLater(() -> {
+            if (diagnostics.isEmpty()) {
+                this.diagnosticsLabel.setText("");
+                this.diagnosticsLabel.setToolTipText(null);
+
+            } else {
+                Diagnostic first = diagnostics.get(0);
+                String more = diagnostics.size() > 1 ? " (+" + (diagnostics.size() - 1) + " more)" : "";
+                this.diagnosticsLabel.setText(describe(first) + more);
+                this.diagnosticsLabel.setForeground(first.getSeverity() == Diagnostic.Severity.ERROR ? Color.RED.darker() : Color.ORANGE.darker());
+                // the messages quote the document, which may hold markup of its own
+                this.diagnosticsLabel.setToolTipText(diagnostics.stream()
+                        .map(diagnostic -> HtmlEscapers.htmlEscaper().escape(describe(diagnostic)))
+                        .collect(Collectors.joining("<br>", "<html>", "</html>")));
+            }
+        });
+    }
+
+    private static String describe(Diagnostic diagnostic) {
+        return "Line " + diagnostic.getLineNumber() + ": " + diagnostic.getMessage();
+    }
+
 }
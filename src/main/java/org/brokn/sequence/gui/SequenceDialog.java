@@ -21,6 +21,7 @@ import com.google.common.flogger.FluentLogger;
 import com.intellij.uiDesigner.core.Spacer;
 import org.brokn.sequence.cli.HeadlessCli;
 import org.brokn.sequence.lexer.parser.MetaDataParser;
+import org.brokn.sequence.rendering.svg.SvgRenderer;
 
 import javax.annotation.Nullable;
 import javax.swing.*;
@@ -31,11 +32,13 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
+import java.util.Collections;
 import java.util.logging.LogManager;
 
 import static javax.swing.JOptionPane.*;
 import static org.brokn.sequence.gui.DialogUtils.copyToClipboard;
 import static org.brokn.sequence.gui.DialogUtils.exportAsImage;
+import static org.brokn.sequence.gui.DialogUtils.exportAsSvg;
 
 public class SequenceDialog extends JFrame {
 
@@ -54,7 +57,7 @@ public class SequenceDialog extends JFrame {
 
     private JPanel contentPane;
     private JTabbedPane tabContainer;
-    private JPanel statusBarPanel;
+    private SeqStatusBar statusBarPanel;
     private JButton newFileButton;
     private JToolBar toolBar;
     private JButton openButton;
@@ -95,6 +98,12 @@ public class SequenceDialog extends JFrame {
             }
         });
 
+        // keep the status bar in step with the selected tab
+        tabContainer.addChangeListener(e -> {
+            TabDocument activeTab = getActiveTab();
+            statusBarPanel.setDiagnostics(activeTab == null ? Collections.emptyList() : activeTab.getDiagnostics());
+        });
+
         // todo temp 'new' button, give it an icon, rename etc...
         newFileButton.addActionListener(e -> onNewFile());
         openButton.addActionListener(e -> openFile());
@@ -157,6 +166,13 @@ public class SequenceDialog extends JFrame {
             this.tabContainer.addTab("Untitled", newTab);
         }
 
+        // show the parse diagnostics of the active tab in the status bar
+        newTab.setDiagnosticsListener(diagnostics -> {
+            if (getActiveTab() == newTab) {
+                statusBarPanel.setDiagnostics(diagnostics);
+            }
+        });
+
         // Add tab title component
         final int index = tabContainer.indexOfComponent(newTab);
         tabContainer.setTabComponentAt(index, newTab.getTabDocumentTitle());
@@ -236,10 +252,16 @@ public class SequenceDialog extends JFrame {
      * Handle 'export image' action
      */
     private void onExport() {
-        FileNameExtensionFilter fileFilter = new FileNameExtensionFilter("Portable Network Graphics (*.png)", "png");
-        DialogUtils.FileDialogResult fileDialogResult = DialogUtils.openSaveAsDialog(fileFilter);
+        FileNameExtensionFilter pngFilter = new FileNameExtensionFilter("Portable Network Graphics (*.png)", "png");
+        FileNameExtensionFilter svgFilter = new FileNameExtensionFilter("Scalable Vector Graphics (*.svg)", "svg");
+        DialogUtils.FileDialogResult fileDialogResult = DialogUtils.openSaveAsDialog(pngFilter, svgFilter);
         if (fileDialogResult.isOkToProceed()) {
-            exportAsImage(fileDialogResult.getFile(), this.getActiveTab().getCanvas());
+            File file = fileDialogResult.getFile();
+            if (SvgRenderer.isSvgFile(file)) {
+                exportAsSvg(file, this.getActiveTab().getCanvas());
+            } else {
+                exportAsImage(file, this.getActiveTab().getCanvas());
+            }
         }
     }
 
@@ -255,9 +277,10 @@ public class SequenceDialog extends JFrame {
     }
 
     public static void main(String[] args) throws ClassNotFoundException, UnsupportedLookAndFeelException, InstantiationException, IllegalAccessException {
-        if (args.length > 1) {
+        // any option runs the command line, e.g. --serve on its own
+        if (args.length > 1 || (args.length == 1 && args[0].startsWith("-"))) {
             logger.atInfo().log("use cli");
-            new HeadlessCli().run(args);
+            System.exit(new HeadlessCli().run(args));
         } else {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
 
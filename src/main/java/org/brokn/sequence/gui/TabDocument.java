@@ -2,15 +2,20 @@ package org.brokn.sequence.gui;
 
 import com.intellij.uiDesigner.core.GridConstraints;
 import com.intellij.uiDesigner.core.GridLayoutManager;
-import org.brokn.sequence.lexer.Lexer;
+import org.brokn.sequence.lexer.Diagnostic;
+import org.brokn.sequence.lexer.IncrementalLexer;
+import org.brokn.sequence.lexer.ParseCache;
+import org.brokn.sequence.lexer.ParseResult;
 import org.brokn.sequence.rendering.Canvas;
-import org.brokn.sequence.rendering.RenderableDiagram;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
 
 public class TabDocument extends JSplitPane implements TextChangedListener {
 
@@ -22,6 +27,15 @@ public class TabDocument extends JSplitPane implements TextChangedListener {
 
     private final TabDocumentTitle tabTitle;
 
+    private final IncrementalLexer lexer = new IncrementalLexer();
+
+    private List<Diagnostic> diagnostics = Collections.emptyList();
+
+    private Consumer<List<Diagnostic>> diagnosticsListener = diagnostics -> { };
+
+    // the lexer is only used by the worker's thread
+    private final ParseWorker parseWorker = new ParseWorker(text -> ParseCache.shared().get(text, lexer::parse), this::applyParse);
+
     public TabDocument(File file) {
         this();
         this.documentState = new DocumentState(this, file);
@@ -59,9 +73,8 @@ public class TabDocument extends JSplitPane implements TextChangedListener {
             @Override
             public void keyReleased(KeyEvent e) {
                 super.keyReleased(e);
-                if (documentState.updateText(textArea.getText())) {
-                    triggerModelUpdate();
-                }
+                // a change is passed back through onTextChanged, which parses it
+                documentState.updateText(textArea.getText());
             }
         });
 
@@ -88,21 +101,22 @@ public class TabDocument extends JSplitPane implements TextChangedListener {
         SwingUtilities.invokeLater(() -> {
             updateTabTitle();
 
-            final int caretPosition = this.textArea.getCaretPosition();
-            this.textArea.setText(newText);
-            this.textArea.setCaretPosition(caretPosition);
-            triggerModelUpdate();
+            // text typed into the text area is already there; only text changed elsewhere, e.g. loaded from a file, is set
+            if (!newText.equals(this.textArea.getText())) {
+                final int caretPosition = this.textArea.getCaretPosition();
+                this.textArea.setText(newText);
+                this.textArea.setCaretPosition(Math.min(caretPosition, newText.length()));
+            }
+            this.parseWorker.submit(newText);
         });
     }
 
-    private void triggerModelUpdate() {
-        SwingUtilities.invokeLater(() -> {
-            Lexer lexer = new Lexer();
-            // update the canvas model, which triggers a re-paint
-            String text = documentState.getCurrentText();
-            RenderableDiagram model = lexer.parse(text);
-            canvas.updateModel(model);
-        });
+    private void applyParse(ParseResult parseResult) {
+        // update the canvas model, which is drawn in the background and shown when ready
+        canvas.updateModel(parseResult.getDiagram());
+
+        this.diagnostics = parseResult.getDiagnostics();
+        diagnosticsListener.accept(this.diagnostics);
     }
 
     private void updateTabTitle() {
@@ -131,6 +145,20 @@ public class TabDocument extends JSplitPane implements TextChangedListener {
         this.documentState = new DocumentState(this, file);
     }
 
+    /**
+     * Diagnostics from the most recent parse of the document.
+     */
+    public List<Diagnostic> getDiagnostics() {
+        return this.diagnostics;
+    }
+
+    /**
+     * Called on the EDT with the diagnostics after every parse of the document.
+     */
+    public void setDiagnosticsListener(Consumer<List<Diagnostic>> diagnosticsListener) {
+        this.diagnosticsListener = diagnosticsListener;
+    }
+
     public Canvas getCanvas() {
         return this.canvas;
     }
@@ -0,0 +1,235 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer;
+
+import org.brokn.sequence.model.CompactDiagram;
+import org.brokn.sequence.model.Interaction;
+import org.brokn.sequence.model.Lane;
+import org.brokn.sequence.model.MetaData;
+import org.brokn.sequence.model.SymbolTable;
+import org.brokn.sequence.rendering.RenderableDiagram;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Binary (.seqb) form of a parsed diagram, which loads straight into a {@link CompactDiagram} without tokenizing.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * header       magic "SEQB", u16 version, u16 reserved, i32 string count, i32 lane count, i32 interaction count
+ * metadata     i32 title id, i32 author id, u8 show date, f32 font size
+ * strings      per string: i32 byte length, UTF-8 bytes
+ * lanes        per lane: i32 name id, in Lane index order
+ * interactions columns of i32 from Lane id, i32 to Lane id, i32 index, u8 modifier bits, i32 message id
+ * </pre>
+ * String ids index the string table, which holds each distinct name and message once; -1 is used for no string.
+ */
+public final class CompiledDiagram {
+
+    public static final String FILE_EXTENSION = ".seqb";
+
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x53455142; // "SEQB"
+
+    private static final int NO_STRING = -1;
+
+    private CompiledDiagram() {
+    }
+
+    public static boolean isCompiledDiagram(Path path) {
+        return path.getFileName().toString().endsWith(FILE_EXTENSION);
+    }
+
+    public static void write(RenderableDiagram diagram, Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(diagram, out);
+        }
+    }
+
+    public static void write(RenderableDiagram diagram, OutputStream out) throws IOException {
+        SymbolTable stringIds = new SymbolTable();
+        MetaData metaData = diagram.getMetaData();
+        List<Lane> lanes = diagram.getLanes();
+        List<Interaction> interactions = diagram.getInteractions();
+
+        int titleId = stringId(stringIds, metaData.getTitle());
+        int authorId = stringId(stringIds, metaData.getAuthor());
+        int[] laneNameIds = new int[lanes.size()];
+        for (int i = 0; i < lanes.size(); i++) {
+            laneNameIds[i] = stringId(stringIds, lanes.get(i).getName());
+        }
+
+        int interactionCount = interactions.size();
+        int[] fromLaneIds = new int[interactionCount];
+        int[] toLaneIds = new int[interactionCount];
+        int[] indices = new int[interactionCount];
+        byte[] modifiers = new byte[interactionCount];
+        int[] messageIds = new int[interactionCount];
+        for (int i = 0; i < interactionCount; i++) {
+            Interaction interaction = interactions.get(i);
+            fromLaneIds[i] = interaction.getFromLane().getIndex();
+            toLaneIds[i] = interaction.getToLane().getIndex();
+            indices[i] = interaction.getIndex();
+            modifiers[i] = CompactDiagram.modifierBits(interaction.getModifiers());
+            messageIds[i] = stringId(stringIds, interaction.getMessage().orElse(null));
+        }
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeShort(0);
+        data.writeInt(stringIds.size());
+        data.writeInt(lanes.size());
+        data.writeInt(interactionCount);
+
+        data.writeInt(titleId);
+        data.writeInt(authorId);
+        data.writeByte(metaData.isShowDate() ? 1 : 0);
+        data.writeFloat(metaData.getFontSize());
+
+        for (String string : stringIds.toArray()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        }
+
+        writeInts(data, laneNameIds);
+        writeInts(data, fromLaneIds);
+        writeInts(data, toLaneIds);
+        writeInts(data, indices);
+        data.write(modifiers);
+        writeInts(data, messageIds);
+        data.flush();
+    }
+
+    /**
+     * Load a compiled diagram from a memory-mapped file.
+     */
+    public static ParseResult read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ParseResult(read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())), Collections.emptyList());
+        }
+    }
+
+    public static RenderableDiagram read(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a compiled " + FILE_EXTENSION + " diagram");
+            }
+            int version = Short.toUnsignedInt(buffer.getShort());
+            if (version != VERSION) {
+                throw new IOException("Unsupported " + FILE_EXTENSION + " version [" + version + "], expected [" + VERSION + "]");
+            }
+            buffer.getShort();
+
+            int stringCount = buffer.getInt();
+            int laneCount = buffer.getInt();
+            int interactionCount = buffer.getInt();
+
+            int titleId = buffer.getInt();
+            int authorId = buffer.getInt();
+            boolean showDate = buffer.get() != 0;
+            float fontSize = buffer.getFloat();
+
+            // the counts are checked against what's left before anything is allocated for them; each string has its length
+            checkCount(buffer, stringCount, Integer.BYTES, "strings");
+            String[] strings = new String[stringCount];
+            for (int i = 0; i < stringCount; i++) {
+                int length = buffer.getInt();
+                checkCount(buffer, length, 1, "bytes of string [" + i + "]");
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            checkCount(buffer, laneCount, Integer.BYTES, "lanes");
+            List<Lane> lanes = new ArrayList<>(laneCount);
+            for (int i = 0; i < laneCount; i++) {
+                lanes.add(new Lane(i, strings[buffer.getInt()]));
+            }
+
+            // from, to, index and message of each, and its modifiers
+            checkCount(buffer, interactionCount, 4 * Integer.BYTES + 1, "interactions");
+            int[] fromLaneIds = readInts(buffer, interactionCount);
+            int[] toLaneIds = readInts(buffer, interactionCount);
+            int[] indices = readInts(buffer, interactionCount);
+            byte[] modifiers = new byte[interactionCount];
+            buffer.get(modifiers);
+            int[] messageIds = readInts(buffer, interactionCount);
+
+            CompactDiagram.Builder interactions = new CompactDiagram.Builder(lanes);
+            for (int i = 0; i < interactionCount; i++) {
+                if (fromLaneIds[i] < 0 || fromLaneIds[i] >= laneCount || toLaneIds[i] < 0 || toLaneIds[i] >= laneCount) {
+                    throw new IOException("Corrupt " + FILE_EXTENSION + " diagram, interaction [" + i + "] refers to an unknown Lane");
+                }
+                interactions.add(fromLaneIds[i], toLaneIds[i], string(strings, messageIds[i]), indices[i], modifiers[i]);
+            }
+
+            MetaData metaData = new MetaData(string(strings, titleId), string(strings, authorId), showDate, fontSize);
+            return new RenderableDiagram(metaData, interactions.build());
+
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException ex) {
+            throw new IOException("Corrupt " + FILE_EXTENSION + " diagram", ex);
+        }
+    }
+
+    private static int stringId(SymbolTable stringIds, @Nullable String string) {
+        return string == null ? NO_STRING : stringIds.intern(string);
+    }
+
+    private static @Nullable String string(String[] strings, int id) {
+        return id == NO_STRING ? null : strings[id];
+    }
+
+    private static void writeInts(DataOutputStream data, int[] values) throws IOException {
+        for (int value : values) {
+            data.writeInt(value);
+        }
+    }
+
+    private static void checkCount(ByteBuffer buffer, int count, int bytesEach, String what) throws IOException {
+        if (count < 0 || (long) count * bytesEach > buffer.remaining()) {
+            throw new IOException("Corrupt " + FILE_EXTENSION + " diagram, [" + count + "] " + what + " don't fit in the ["
+                    + buffer.remaining() + "] bytes left");
+        }
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        return values;
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+
+/**
+ * A problem found in the input, reported against the line (and column, where known) it was found on.
+ * Line and column numbers start at 1; a column of 0 means the whole line.
+ */
+public class Diagnostic {
+
+    public enum Severity {
+        WARNING, ERROR
+    }
+
+    private final int lineNumber;
+
+    private final int column;
+
+    private final Severity severity;
+
+    private final String message;
+
+    public Diagnostic(int lineNumber, int column, Severity severity, String message) {
+        this.lineNumber = lineNumber;
+        this.column = column;
+        this.severity = severity;
+        this.message = message;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public Severity getSeverity() {
+        return severity;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * The same diagnostic, reported against a line which has moved.
+     */
+    Diagnostic withLineNumber(int lineNumber) {
+        return lineNumber == this.lineNumber ? this : new Diagnostic(lineNumber, column, severity, message);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Diagnostic that = (Diagnostic) o;
+        return lineNumber == that.lineNumber &&
+                column == that.column &&
+                severity == that.severity &&
+                Objects.equal(message, that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(lineNumber, column, severity, message);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("lineNumber", lineNumber)
+                .add("column", column)
+                .add("severity", severity)
+                .add("message", message)
+                .toString();
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer;
+
+import com.google.common.flogger.FluentLogger;
+import org.brokn.sequence.lexer.parser.InteractionParser;
+import org.brokn.sequence.lexer.parser.LaneParser;
+import org.brokn.sequence.lexer.parser.LaneTable;
+import org.brokn.sequence.lexer.parser.MetaDataParser;
+import org.brokn.sequence.lexer.parser.ParsedInteraction;
+import org.brokn.sequence.model.Interaction;
+import org.brokn.sequence.model.MetaData;
+import org.brokn.sequence.model.SymbolTable;
+import org.brokn.sequence.rendering.RenderableDiagram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lexer for the editor, which remembers the parse result of every line between calls.
+ * After an edit only the changed range of lines is parsed again; the Lane and Interaction lists are then
+ * patched from the remembered line results, giving the same result as a full {@link Lexer#parse(String)}.
+ */
+public class IncrementalLexer {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+    private final MetaDataParser metaDataParser = new MetaDataParser();
+
+    private final LaneParser laneParser = new LaneParser();
+
+    private List<String> lines = new ArrayList<>();
+
+    private final List<ParsedLine> parsedLines = new ArrayList<>();
+
+    private LaneTable laneTable = new LaneTable();
+
+    // the index of the line each lane name first appears on
+    private final Map<String, Integer> laneFirstLines = new HashMap<>();
+
+    private final List<Interaction> interactions = new ArrayList<>();
+
+    public ParseResult parse(String input) {
+        long startNanos = System.nanoTime();
+        List<String> newLines = Tokenizer.splitLines(input);
+
+        // find the range of lines which changed since the last parse
+        int dirtyStart = 0;
+        int maxCommon = Math.min(lines.size(), newLines.size());
+        while (dirtyStart < maxCommon && lines.get(dirtyStart).equals(newLines.get(dirtyStart))) {
+            dirtyStart++;
+        }
+
+        int oldDirtyEnd = lines.size();
+        int newDirtyEnd = newLines.size();
+        while (oldDirtyEnd > dirtyStart && newDirtyEnd > dirtyStart && lines.get(oldDirtyEnd - 1).equals(newLines.get(newDirtyEnd - 1))) {
+            oldDirtyEnd--;
+            newDirtyEnd--;
+        }
+
+        // re-parse the dirty lines only, replacing their previous results
+        // symbols are shared by the lines parsed together, such as a whole document when it is loaded;
+        // a table kept across edits would only grow with every partly typed name
+        SymbolTable symbols = new SymbolTable();
+        List<ParsedLine> dirtyLines = new ArrayList<>(newDirtyEnd - dirtyStart);
+        for (int i = dirtyStart; i < newDirtyEnd; i++) {
+            dirtyLines.add(parseLine(newLines.get(i), i + 1, symbols));
+        }
+        parsedLines.subList(dirtyStart, oldDirtyEnd).clear();
+        parsedLines.addAll(dirtyStart, dirtyLines);
+        this.lines = newLines;
+
+        logger.atFine().log("Re-parsed lines [%d, %d) of [%d]", dirtyStart, newDirtyEnd, newLines.size());
+
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        MetaData metaData = parseMetaData(diagnostics);
+        patchLanes(dirtyStart, oldDirtyEnd, newDirtyEnd);
+        patchInteractions(dirtyStart);
+
+        // line diagnostics are remembered with the line, which may since have moved
+        for (int i = 0; i < parsedLines.size(); i++) {
+            ParsedLine parsedLine = parsedLines.get(i);
+            for (Diagnostic diagnostic : parsedLine.lineDiagnostics) {
+                diagnostics.add(diagnostic.withLineNumber(i + 1));
+            }
+            for (Diagnostic diagnostic : parsedLine.interactionDiagnostics) {
+                diagnostics.add(diagnostic.withLineNumber(i + 1));
+            }
+        }
+
+        return ParseLog.summarize("incremental", startNanos, new ParseResult(new RenderableDiagram(metaData, laneTable.getLanes(), interactions), diagnostics));
+    }
+
+    private ParsedLine parseLine(String line, int lineNumber, SymbolTable symbols) {
+        ParsedLine parsedLine = new ParsedLine(Tokenizer.isMetaData(line), Tokenizer.isInteraction(line));
+        if (parsedLine.interaction) {
+            parsedLine.laneNames = laneParser.parseLaneNames(line.trim(), symbols);
+            parsedLine.parsedInteraction = InteractionParser.parseLine(line, lineNumber, parsedLine.lineDiagnostics, symbols);
+        }
+        return parsedLine;
+    }
+
+    private MetaData parseMetaData(List<Diagnostic> diagnostics) {
+        // there are only ever a handful of metadata lines, so these are simply re-parsed each time
+        List<Token> metaDataTokens = new ArrayList<>();
+        for (int i = 0; i < parsedLines.size(); i++) {
+            if (parsedLines.get(i).metaData) {
+                metaDataTokens.add(new Token(Token.Type.META_DATA, i + 1, lines.get(i)));
+            }
+        }
+        return metaDataParser.parseTokens(metaDataTokens, diagnostics);
+    }
+
+    private void patchLanes(int dirtyStart, int oldDirtyEnd, int newDirtyEnd) {
+        // lanes are indexed in the order they are first found in the whole document, so the table is unchanged unless a
+        // lane first appeared in the lines replaced, or first appears in the lines replacing them
+        if (!firstAppearanceMoved(dirtyStart, oldDirtyEnd, newDirtyEnd)) {
+            int shift = newDirtyEnd - oldDirtyEnd;
+            if (shift != 0) {
+                laneFirstLines.replaceAll((name, line) -> line >= oldDirtyEnd ? line + shift : line);
+            }
+            return;
+        }
+
+        List<String> knownLanes = new ArrayList<>();
+        laneFirstLines.clear();
+        for (int i = 0; i < parsedLines.size(); i++) {
+            for (String laneName : parsedLines.get(i).laneNames) {
+                knownLanes.add(laneName);
+                laneFirstLines.putIfAbsent(laneName, i);
+            }
+        }
+
+        LaneTable newLaneTable = LaneTable.fromNames(knownLanes);
+        if (!newLaneTable.equals(this.laneTable)) {
+            this.laneTable = newLaneTable;
+
+            // every interaction refers to the old lanes, so all of them must be re-created
+            this.interactions.clear();
+            for (ParsedLine parsedLine : parsedLines) {
+                parsedLine.clearCheckpoint();
+            }
+        }
+    }
+
+    private boolean firstAppearanceMoved(int dirtyStart, int oldDirtyEnd, int newDirtyEnd) {
+        for (int line : laneFirstLines.values()) {
+            if (line >= dirtyStart && line < oldDirtyEnd) {
+                return true;
+            }
+        }
+        for (int i = dirtyStart; i < newDirtyEnd; i++) {
+            for (String laneName : parsedLines.get(i).laneNames) {
+                Integer firstLine = laneFirstLines.get(laneName);
+                if (firstLine == null || firstLine >= dirtyStart) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void patchInteractions(int dirtyStart) {
+        // resume from the state after the last clean line, which is unchanged since the previous parse
+        int resumeFrom = dirtyStart;
+        while (resumeFrom > 0 && !parsedLines.get(resumeFrom - 1).hasCheckpoint()) {
+            resumeFrom--;
+        }
+
+        int interactionCount = 0;
+        int interactionIndex = 0;
+        if (resumeFrom > 0) {
+            ParsedLine checkpoint = parsedLines.get(resumeFrom - 1);
+            interactionCount = checkpoint.interactionCountAfter;
+            interactionIndex = checkpoint.interactionIndexAfter;
+        }
+        interactions.subList(interactionCount, interactions.size()).clear();
+
+        for (int i = resumeFrom; i < parsedLines.size(); i++) {
+            ParsedLine parsedLine = parsedLines.get(i);
+            parsedLine.interactionDiagnostics.clear();
+
+            ParsedInteraction parsedInteraction = parsedLine.parsedInteraction;
+            if (parsedInteraction != null) {
+                Interaction interaction = InteractionParser.createInteraction(laneTable, parsedInteraction, interactionIndex, i + 1, parsedLine.interactionDiagnostics);
+                if (interaction != null) {
+                    interactions.add(interaction);
+                    interactionIndex += parsedInteraction.getRowCount();
+                }
+            }
+            parsedLine.checkpoint(interactions.size(), interactionIndex);
+        }
+    }
+
+    /**
+     * The remembered parse result of a single line, plus the state of the interaction pass after that line.
+     * Diagnostics are kept against the line number the line had when they were found.
+     */
+    private static class ParsedLine {
+
+        private final boolean metaData;
+        private final boolean interaction;
+        private List<String> laneNames = Collections.emptyList();
+        private ParsedInteraction parsedInteraction;
+        private final List<Diagnostic> lineDiagnostics = new ArrayList<>();
+        private final List<Diagnostic> interactionDiagnostics = new ArrayList<>();
+
+        private int interactionCountAfter = -1;
+        private int interactionIndexAfter;
+
+        ParsedLine(boolean metaData, boolean interaction) {
+            this.metaData = metaData;
+            this.interaction = interaction;
+        }
+
+        void checkpoint(int interactionCount, int interactionIndex) {
+            this.interactionCountAfter = interactionCount;
+            this.interactionIndexAfter = interactionIndex;
+        }
+
+        void clearCheckpoint() {
+            this.interactionCountAfter = -1;
+        }
+
+        boolean hasCheckpoint() {
+            return this.interactionCountAfter >= 0;
+        }
+    }
+
+}
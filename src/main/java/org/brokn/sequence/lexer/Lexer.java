@@ -17,30 +17,183 @@
 
 package org.brokn.sequence.lexer;
 
+import com.google.common.flogger.FluentLogger;
 import org.brokn.sequence.lexer.parser.InteractionParser;
 import org.brokn.sequence.lexer.parser.LaneParser;
+import org.brokn.sequence.lexer.parser.LaneTable;
 import org.brokn.sequence.lexer.parser.MetaDataParser;
 import org.brokn.sequence.model.Interaction;
-import org.brokn.sequence.model.Lane;
 import org.brokn.sequence.model.MetaData;
+import org.brokn.sequence.model.SymbolTable;
 import org.brokn.sequence.rendering.RenderableDiagram;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class Lexer {
 
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+    /**
+     * Inputs of this size or more are parsed from a memory-mapped file by {@link #parse(Path)}.
+     */
+    public static final long MAPPED_PARSE_THRESHOLD = 64L * 1024 * 1024;
+
+    /**
+     * Inputs of this many characters or more are parsed in parallel by {@link #parse(String)}.
+     */
+    public static final int PARALLEL_PARSE_THRESHOLD = 4 * 1024 * 1024;
+
+    private static final int PARALLEL_CHUNK_SIZE = 512 * 1024;
+
+    private final Tokenizer tokenizer = new Tokenizer();
+
     private final MetaDataParser metaDataParser = new MetaDataParser();
 
     private final LaneParser laneParser = new LaneParser();
 
     private final InteractionParser interactionParser = new InteractionParser();
 
-    public RenderableDiagram parse(String input) {
-        MetaData metaData = metaDataParser.parse(input);
-        List<Lane> lanes = laneParser.parse(input);
-        List<Interaction> interactions = interactionParser.parse(lanes, input);
+    public ParseResult parse(String input) {
+        if (input != null && input.length() >= PARALLEL_PARSE_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            return parseParallel(input);
+        }
+
+        long startNanos = System.nanoTime();
+
+        // split the input once, then feed the same tokens to each parser
+        Tokenizer.TokenizedInput tokens = tokenizer.tokenize(input);
+
+        // one symbol table for the parse, so each Lane name and repeated message is a single String
+        SymbolTable symbols = new SymbolTable();
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        MetaData metaData = metaDataParser.parseTokens(tokens.getMetaDataTokens(), diagnostics);
+        LaneTable laneTable = laneParser.parseTokens(tokens.getInteractionTokens(), symbols);
+        List<Interaction> interactions = interactionParser.parseTokens(laneTable, tokens.getInteractionTokens(), diagnostics, symbols);
+
+        return ParseLog.summarize("string", startNanos, new ParseResult(new RenderableDiagram(metaData, laneTable.getLanes(), interactions), diagnostics));
+    }
+
+    /**
+     * Parse a .seq file; files of {@link #MAPPED_PARSE_THRESHOLD} bytes or more are memory-mapped rather than read.
+     */
+    public ParseResult parse(Path path) throws IOException {
+        if (Files.size(path) >= MAPPED_PARSE_THRESHOLD) {
+            return parseMapped(path);
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    /**
+     * Parse a diagram line by line straight from the reader, without holding the whole input in memory.
+     */
+    public ParseResult parse(Reader reader) throws IOException {
+        long startNanos = System.nanoTime();
+        BufferedReader bufferedReader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        ParseChunk chunk = new ParseChunk();
+
+        String line;
+        int lineNumber = 0;
+        while ((line = bufferedReader.readLine()) != null) {
+            chunk.accept(++lineNumber, line);
+        }
+
+        return ParseLog.summarize("reader", startNanos, ParseChunk.merge(List.of(chunk), metaDataParser));
+    }
+
+    /**
+     * Parse a diagram from a memory-mapped file, for inputs too large to comfortably read onto the heap.
+     * Lines are found in the mapped bytes, and only metadata and interaction lines are ever decoded.
+     */
+    public ParseResult parseMapped(Path path) throws IOException {
+        long startNanos = System.nanoTime();
+        ParseChunk chunk = new ParseChunk();
+        chunk.setLineCount(new MappedLineScanner().scan(path, chunk::accept));
+        return ParseLog.summarize("mapped", startNanos, ParseChunk.merge(List.of(chunk), metaDataParser));
+    }
+
+    /**
+     * Parse the input in line-aligned chunks on the fork-join pool, then merge the chunks in order.
+     * Gives the same model as a sequential parse. If the calling thread is interrupted while it waits, the chunks not
+     * yet parsed are cancelled and a {@link CancellationException} is thrown, with the thread's interrupt restored.
+     */
+    public ParseResult parseParallel(String input) {
+        return parseParallel(input, PARALLEL_CHUNK_SIZE);
+    }
+
+    ParseResult parseParallel(String input, int chunkSize) {
+        long startNanos = System.nanoTime();
+        List<Callable<ParseChunk>> chunkTasks = new ArrayList<>();
+        int chunkStart = 0;
+        while (chunkStart <= input.length()) {
+            // extend each chunk to the end of the line it finishes in
+            int chunkEnd = input.indexOf('\n', Math.min(chunkStart + chunkSize, input.length()));
+            if (chunkEnd < 0) {
+                chunkEnd = input.length();
+            }
+
+            final int start = chunkStart;
+            final int end = chunkEnd;
+            chunkTasks.add(() -> parseChunk(input, start, end));
+            chunkStart = chunkEnd + 1;
+        }
+
+        // submitted one by one, as invokeAll waits for every chunk, whether or not the caller is interrupted
+        List<Future<ParseChunk>> futures = new ArrayList<>(chunkTasks.size());
+        for (Callable<ParseChunk> chunkTask : chunkTasks) {
+            futures.add(ForkJoinPool.commonPool().submit(chunkTask));
+        }
+
+        List<ParseChunk> chunks = new ArrayList<>(futures.size());
+        try {
+            for (Future<ParseChunk> chunk : futures) {
+                chunks.add(chunk.get());
+            }
+        } catch (InterruptedException ex) {
+            // the caller was cancelled, e.g. by a newer edit or a timeout, and must still see that it was
+            Thread.currentThread().interrupt();
+            CancellationException cancelled = new CancellationException("Parse was interrupted");
+            cancelled.initCause(ex);
+            throw cancelled;
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Failed to parse chunk", ex);
+        } finally {
+            if (chunks.size() < futures.size()) {
+                futures.forEach(future -> future.cancel(true));
+            }
+        }
+
+        return ParseLog.summarize("parallel, " + chunks.size() + " chunks", startNanos, ParseChunk.merge(chunks, metaDataParser));
+    }
+
+    private static ParseChunk parseChunk(String input, int chunkStart, int chunkEnd) {
+        ParseChunk chunk = new ParseChunk();
+        int lineNumber = 0;
+        int lineStart = chunkStart;
+        while (lineStart <= chunkEnd) {
+            int lineEnd = input.indexOf('\n', lineStart);
+            if (lineEnd < 0 || lineEnd > chunkEnd) {
+                lineEnd = chunkEnd;
+            }
 
-        return new RenderableDiagram(metaData, lanes, interactions);
+            chunk.accept(++lineNumber, input.substring(lineStart, lineEnd));
+            lineStart = lineEnd + 1;
+        }
+        return chunk;
     }
 
 }
@@ -0,0 +1,147 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the lines of a file through memory-mapped regions, scanning for newlines, "->" and ":" in the mapped bytes.
+ * Only lines which are metadata or interaction tokens are decoded into Strings; blank lines, comments and any
+ * other text are skipped in place. All of the bytes searched for are ASCII, which never occur inside a multi-byte
+ * UTF-8 sequence, so the scan is safe on UTF-8 input.
+ * Lines end at '\n', with any trailing '\r' removed, as with {@link java.io.BufferedReader#readLine()}.
+ */
+class MappedLineScanner {
+
+    /**
+     * Files are mapped a region at a time, so inputs larger than a single MappedByteBuffer can be parsed.
+     */
+    private static final long DEFAULT_REGION_SIZE = 1L << 30;
+
+    interface LineConsumer {
+        void accept(int lineNumber, String line);
+    }
+
+    private final long regionSize;
+
+    MappedLineScanner() {
+        this(DEFAULT_REGION_SIZE);
+    }
+
+    MappedLineScanner(long regionSize) {
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * Scan the file, passing each token line to the consumer.
+     *
+     * @return the total number of lines in the file
+     */
+    int scan(Path path, LineConsumer consumer) throws IOException {
+        int lineNumber = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long position = 0;
+            long mapSize = regionSize;
+            while (position < fileSize) {
+                int limit = (int) Math.min(mapSize, fileSize - position);
+                boolean lastRegion = position + limit == fileSize;
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, limit);
+
+                int lineStart = 0;
+                while (lineStart < limit) {
+                    int lineEnd = indexOf(buffer, (byte) '\n', lineStart, limit);
+                    if (lineEnd < 0 && !lastRegion) {
+                        // the line continues past this region, so pick it up again from the start of the next
+                        break;
+                    } else if (lineEnd < 0) {
+                        lineEnd = limit;
+                    }
+
+                    acceptLine(buffer, lineStart, lineEnd, ++lineNumber, consumer);
+                    lineStart = lineEnd + 1;
+                }
+
+                if (lineStart == 0) {
+                    // a single line longer than the region; map a larger region and try again
+                    if (mapSize >= Integer.MAX_VALUE) {
+                        throw new IOException("Line " + (lineNumber + 1) + " is too long to map");
+                    }
+                    mapSize = Math.min(mapSize * 2, Integer.MAX_VALUE);
+                } else {
+                    position += Math.min(lineStart, limit);
+                    mapSize = regionSize;
+                }
+            }
+        }
+        return lineNumber;
+    }
+
+    private static void acceptLine(MappedByteBuffer buffer, int lineStart, int lineEnd, int lineNumber, LineConsumer consumer) {
+        if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+            lineEnd--;
+        }
+
+        if (isInteraction(buffer, lineStart, lineEnd) || isMetaData(buffer, lineStart, lineEnd)) {
+            byte[] bytes = new byte[lineEnd - lineStart];
+            buffer.get(lineStart, bytes);
+            consumer.accept(lineNumber, new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Byte equivalent of {@link Tokenizer#isInteraction(String)}
+     */
+    private static boolean isInteraction(MappedByteBuffer buffer, int lineStart, int lineEnd) {
+        for (int i = lineStart; i < lineEnd - 1; i++) {
+            if (buffer.get(i) == '-' && buffer.get(i + 1) == '>') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Byte equivalent of {@link Tokenizer#isMetaData(String)}; String.trim() removes everything up to and including ' '
+     */
+    private static boolean isMetaData(MappedByteBuffer buffer, int lineStart, int lineEnd) {
+        for (int i = lineStart; i < lineEnd; i++) {
+            byte b = buffer.get(i);
+            if (b < 0 || b > ' ') {
+                return b == ':';
+            }
+        }
+        return false;
+    }
+
+    private static int indexOf(MappedByteBuffer buffer, byte target, int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            if (buffer.get(i) == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
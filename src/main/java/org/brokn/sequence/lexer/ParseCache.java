@@ -0,0 +1,127 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Least-recently-used cache of parse results, keyed by a 128-bit hash of the source text.
+ * Re-parsing text which has been seen before (a re-save, undo, switching back to a tab) returns the
+ * same immutable result, along with the layout already computed for it.
+ * Entries are weighed by an estimate of the heap their diagram holds once drawn, layout and display list included,
+ * rather than by their source, which is many times smaller; they are evicted once the total exceeds the maximum.
+ */
+public class ParseCache {
+
+    /**
+     * Default total estimated heap, in bytes, held by the cache's entries.
+     */
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 128L * 1024 * 1024;
+
+    private static final ParseCache SHARED = new ParseCache(DEFAULT_MAXIMUM_WEIGHT);
+
+    private static final HashFunction CONTENT_HASH = Hashing.murmur3_128();
+
+    private final Cache<HashCode, Entry> entries;
+
+    public ParseCache(long maximumWeight) {
+        this.entries = CacheBuilder.newBuilder()
+                .concurrencyLevel(1)
+                .maximumWeight(maximumWeight)
+                .weigher((HashCode key, Entry entry) -> entry.weight)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The cache shared by every document in this process.
+     */
+    public static ParseCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Get the result for the source text, parsing it with the given parser if it's not already cached.
+     */
+    public ParseResult get(String source, Function<String, ParseResult> parser) {
+        HashCode key = CONTENT_HASH.hashUnencodedChars(source);
+        try {
+            return entries.get(key, () -> {
+                ParseResult parseResult = parser.apply(source);
+                return new Entry(weigh(source, parseResult), parseResult);
+            }).parseResult;
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Failed to parse source", ex.getCause());
+        }
+    }
+
+    /**
+     * The estimated heap held by the result once its diagram has been drawn, in bytes; the diagram's text is counted
+     * as the source, two bytes a character. The weight is fixed when the entry is added, before the layout exists.
+     */
+    static int weigh(String source, ParseResult parseResult) {
+        long bytes = 2L * source.length() + parseResult.getDiagram().estimateRetainedBytes();
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    public long getHitCount() {
+        return entries.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return entries.stats().missCount();
+    }
+
+    public long size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        CacheStats stats = entries.stats();
+        return MoreObjects.toStringHelper(this)
+                .add("size", entries.size())
+                .add("hits", stats.hitCount())
+                .add("misses", stats.missCount())
+                .add("evictions", stats.evictionCount())
+                .toString();
+    }
+
+    private static class Entry {
+
+        private final int weight;
+
+        private final ParseResult parseResult;
+
+        Entry(int weight, ParseResult parseResult) {
+            this.weight = weight;
+            this.parseResult = parseResult;
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.brokn.sequence.lexer;
+
+import com.google.common.flogger.FluentLogger;
+import org.brokn.sequence.lexer.parser.InteractionParser;
+import org.brokn.sequence.lexer.parser.LaneParser;
+import org.brokn.sequence.lexer.parser.LaneTable;
+import org.brokn.sequence.lexer.parser.MetaDataParser;
+import org.brokn.sequence.lexer.parser.ParsedInteraction;
+import org.brokn.sequence.model.CompactDiagram;
+import org.brokn.sequence.model.Lane;
+import org.brokn.sequence.model.MetaData;
+import org.brokn.sequence.model.SymbolTable;
+import org.brokn.sequence.rendering.RenderableDiagram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The parse results of a run of consecutive lines, numbered from 1 within the chunk.
+ * Lane names are kept in the order they first appear, and interactions are kept as ids into the chunk's own
+ * symbol table of names and messages, as an interaction may name a Lane which is only defined further down.
+ * Each chunk has its own symbol table, so that chunks parsed in parallel never share one.
+ * Chunks can be parsed independently (and in parallel); {@link #merge(List, MetaDataParser)} then
+ * combines them in order into a {@link CompactDiagram}, giving the same model as a single pass over every line.
+ */
+class ParseChunk {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+    private final LaneParser laneParser = new LaneParser();
+
+    private final List<Token> metaDataTokens = new ArrayList<>();
+    private final Set<String> laneNames = new LinkedHashSet<>();
+    private final List<Diagnostic> diagnostics = new ArrayList<>();
+    private int lineCount = 0;
+
+    // names and messages used by the interactions, by id
+    private final SymbolTable symbols = new SymbolTable();
+
+    // parsed interactions, in line order
+    private int pendingCount = 0;
+    private int[] pendingLineNumbers = new int[16];
+    private int[] pendingFromIds = new int[16];
+    private int[] pendingToIds = new int[16];
+    private byte[] pendingModifiers = new byte[16];
+    private String[] pendingMessages = new String[16];
+
+    void accept(int lineNumber, String line) {
+        lineCount = Math.max(lineCount, lineNumber);
+
+        if (Tokenizer.isMetaData(line)) {
+            metaDataTokens.add(new Token(Token.Type.META_DATA, lineNumber, line));
+        }
+
+        if (Tokenizer.isInteraction(line)) {
+            laneNames.addAll(laneParser.parseLaneNames(line.trim(), symbols));
+
+            ParsedInteraction parsedInteraction = InteractionParser.parseLine(line, lineNumber, diagnostics, symbols);
+            if (parsedInteraction != null) {
+                addPending(lineNumber, parsedInteraction);
+            }
+        }
+    }
+
+    private void addPending(int lineNumber, ParsedInteraction parsedInteraction) {
+        if (pendingCount == pendingLineNumbers.length) {
+            int capacity = pendingCount * 2;
+            pendingLineNumbers = Arrays.copyOf(pendingLineNumbers, capacity);
+            pendingFromIds = Arrays.copyOf(pendingFromIds, capacity);
+            pendingToIds = Arrays.copyOf(pendingToIds, capacity);
+            pendingModifiers = Arrays.copyOf(pendingModifiers, capacity);
+            pendingMessages = Arrays.copyOf(pendingMessages, capacity);
+        }
+
+        pendingLineNumbers[pendingCount] = lineNumber;
+        pendingFromIds[pendingCount] = symbols.intern(parsedInteraction.getFromName());
+        pendingToIds[pendingCount] = symbols.intern(parsedInteraction.getToName());
+        pendingModifiers[pendingCount] = CompactDiagram.modifierBits(parsedInteraction.getModifiers());
+        pendingMessages[pendingCount] = parsedInteraction.getMessage();
+        pendingCount++;
+    }
+
+    /**
+     * Account for trailing lines which were not passed to {@link #accept(int, String)}.
+     */
+    void setLineCount(int lineCount) {
+        this.lineCount = Math.max(this.lineCount, lineCount);
+    }
+
+    /**
+     * Merge chunks of consecutive lines, in order, into the diagram.
+     * Lanes are indexed by their first appearance across all chunks, and interaction indices continue from one chunk to the next.
+     */
+    static ParseResult merge(List<ParseChunk> chunks, MetaDataParser metaDataParser) {
+        List<Token> metaDataTokens = new ArrayList<>();
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        LaneTable laneTable = new LaneTable();
+        int lineOffset = 0;
+        for (ParseChunk chunk : chunks) {
+            for (Token token : chunk.metaDataTokens) {
+                metaDataTokens.add(new Token(token.getType(), lineOffset + token.getLineNumber(), token.getText()));
+            }
+            for (Diagnostic diagnostic : chunk.diagnostics) {
+                diagnostics.add(diagnostic.withLineNumber(lineOffset + diagnostic.getLineNumber()));
+            }
+            chunk.laneNames.forEach(laneTable::add);
+            lineOffset += chunk.lineCount;
+        }
+
+        CompactDiagram.Builder interactions = new CompactDiagram.Builder(laneTable.getLanes());
+        int interactionCount = 0;
+        lineOffset = 0;
+        for (ParseChunk chunk : chunks) {
+            // resolve each symbol once per chunk, rather than once per interaction
+            Lane[] lanes = new Lane[chunk.symbols.size()];
+            for (int id = 0; id < lanes.length; id++) {
+                lanes[id] = laneTable.lookup(chunk.symbols.get(id));
+            }
+
+            for (int i = 0; i < chunk.pendingCount; i++) {
+                int lineNumber = lineOffset + chunk.pendingLineNumbers[i];
+                Lane fromLane = lanes[chunk.pendingFromIds[i]];
+                Lane toLane = lanes[chunk.pendingToIds[i]];
+                if (fromLane == null) {
+                    diagnostics.add(InteractionParser.unknownLane(lineNumber, chunk.symbols.get(chunk.pendingFromIds[i])));
+                }
+                if (toLane == null) {
+                    diagnostics.add(InteractionParser.unknownLane(lineNumber, chunk.symbols.get(chunk.pendingToIds[i])));
+                }
+
+                if (fromLane != null && toLane != null) {
+                    interactions.add(fromLane.getIndex(), toLane.getIndex(), chunk.pendingMessages[i], interactionCount, chunk.pendingModifiers[i]);
+
+                    // self-referential interactions take a second row
+                    interactionCount += fromLane == toLane ? 2 : 1;
+                }
+            }
+            lineOffset += chunk.lineCount;
+        }
+
+        MetaData metaData = metaDataParser.parseTokens(metaDataTokens, diagnostics);
+        CompactDiagram compactDiagram = interactions.build();
+        logger.atFine().log("Merged [%d] chunks, found [%d] Lanes and [%d] interactions", chunks.size(), laneTable.size(), compactDiagram.size());
+        return new ParseResult(new RenderableDiagram(metaData, compactDiagram), diagnostics);
+    }
+
+}
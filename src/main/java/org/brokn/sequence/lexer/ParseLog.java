@@ -0,0 +1,66 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer;
+
+import com.google.common.flogger.FluentLogger;
+import org.brokn.sequence.rendering.RenderableDiagram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One summary record per parse, in place of logging from each parser as it goes.
+ * The full model is only written out when verbose logging is turned on, with -Dsequence.log.verbose=true or
+ * the --verbose command line option, as formatting a large diagram can cost more than parsing it.
+ */
+public final class ParseLog {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+    public static final String VERBOSE_PROPERTY = "sequence.log.verbose";
+
+    private static volatile boolean verbose = Boolean.getBoolean(VERBOSE_PROPERTY);
+
+    private ParseLog() {
+    }
+
+    public static boolean isVerbose() {
+        return verbose;
+    }
+
+    public static void setVerbose(boolean verbose) {
+        ParseLog.verbose = verbose;
+    }
+
+    /**
+     * Log the summary of a parse which started at startNanos, returning the result.
+     * The editor parses after every pause in typing, so the summary is written at most once a second.
+     */
+    static ParseResult summarize(String mode, long startNanos, ParseResult result) {
+        RenderableDiagram diagram = result.getDiagram();
+        logger.atInfo().atMostEvery(1, TimeUnit.SECONDS).log("Parsed (%s) in %.1f ms: [%d] Lanes, [%d] interactions, [%d] diagnostics",
+                mode, (System.nanoTime() - startNanos) / 1e6, diagram.getLanes().size(), diagram.getInteractions().size(), result.getDiagnostics().size());
+
+        if (verbose) {
+            logger.atInfo().log("Parsed %s, Lanes %s, interactions %s, diagnostics %s",
+                    diagram.getMetaData(), diagram.getLanes(), diagram.getInteractions(), result.getDiagnostics());
+        }
+        return result;
+    }
+
+}
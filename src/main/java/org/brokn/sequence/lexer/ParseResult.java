@@ -0,0 +1,65 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer;
+
+import com.google.common.base.MoreObjects;
+import org.brokn.sequence.rendering.RenderableDiagram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The diagram parsed from the input, plus the diagnostics for any lines which could not be used.
+ * Diagnostics are ordered by line number.
+ */
+public class ParseResult {
+
+    private final RenderableDiagram diagram;
+
+    private final List<Diagnostic> diagnostics;
+
+    public ParseResult(RenderableDiagram diagram, List<Diagnostic> diagnostics) {
+        this.diagram = diagram;
+        List<Diagnostic> sortedDiagnostics = new ArrayList<>(diagnostics);
+        sortedDiagnostics.sort(Comparator.comparingInt(Diagnostic::getLineNumber));
+        this.diagnostics = Collections.unmodifiableList(sortedDiagnostics);
+    }
+
+    public RenderableDiagram getDiagram() {
+        return diagram;
+    }
+
+    public List<Diagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    public boolean hasErrors() {
+        return diagnostics.stream().anyMatch(diagnostic -> diagnostic.getSeverity() == Diagnostic.Severity.ERROR);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("diagram", diagram)
+                .add("diagnostics", diagnostics)
+                .toString();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+
+/**
+ * A single line of input, classified by the Tokenizer.
+ * Line numbers start at 1 so they can be reported back to the user as-is.
+ */
+public class Token {
+
+    public enum Type {
+        META_DATA, INTERACTION
+    }
+
+    private final Type type;
+
+    private final int lineNumber;
+
+    private final String text;
+
+    public Token(Type type, int lineNumber, String text) {
+        this.type = type;
+        this.lineNumber = lineNumber;
+        this.text = text;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Token token = (Token) o;
+        return lineNumber == token.lineNumber &&
+                type == token.type &&
+                Objects.equal(text, token.text);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(type, lineNumber, text);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("type", type)
+                .add("lineNumber", lineNumber)
+                .add("text", text)
+                .toString();
+    }
+}
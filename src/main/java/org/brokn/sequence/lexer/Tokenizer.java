@@ -0,0 +1,109 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits the input into lines exactly once, sorting each line into MetaData or Interaction tokens.
+ * Interaction lines also name the Lanes, so the same tokens feed both the LaneParser and the InteractionParser.
+ */
+public class Tokenizer {
+
+    static final String META_DATA_TOKEN = ":";
+
+    static final String INTERACTION_TOKEN = "->";
+
+    public @Nonnull TokenizedInput tokenize(@Nullable String input) {
+        List<Token> metaDataTokens = new ArrayList<>();
+        List<Token> interactionTokens = new ArrayList<>();
+
+        int lineNumber = 1;
+        for (String line : splitLines(input)) {
+            if (isMetaData(line)) {
+                metaDataTokens.add(new Token(Token.Type.META_DATA, lineNumber, line));
+            }
+            if (isInteraction(line)) {
+                interactionTokens.add(new Token(Token.Type.INTERACTION, lineNumber, line));
+            }
+            lineNumber++;
+        }
+
+        return new TokenizedInput(metaDataTokens, interactionTokens);
+    }
+
+    /**
+     * Split the input on newlines; a null input has no lines.
+     */
+    public static @Nonnull List<String> splitLines(@Nullable String input) {
+        List<String> lines = new ArrayList<>();
+        if (input != null) {
+            int lineStart = 0;
+            while (lineStart <= input.length()) {
+                int lineEnd = input.indexOf('\n', lineStart);
+                if (lineEnd < 0) {
+                    lineEnd = input.length();
+                }
+
+                lines.add(input.substring(lineStart, lineEnd));
+                lineStart = lineEnd + 1;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * MetaData lines start with ':', e.g. ':title My Diagram'
+     */
+    public static boolean isMetaData(String line) {
+        return line.trim().startsWith(META_DATA_TOKEN);
+    }
+
+    /**
+     * Lines with -> are 'interactions', but they may be ->, -->, ->> or -->>
+     */
+    public static boolean isInteraction(String line) {
+        return line.contains(INTERACTION_TOKEN);
+    }
+
+    public static class TokenizedInput {
+
+        private final List<Token> metaDataTokens;
+
+        private final List<Token> interactionTokens;
+
+        TokenizedInput(List<Token> metaDataTokens, List<Token> interactionTokens) {
+            this.metaDataTokens = Collections.unmodifiableList(metaDataTokens);
+            this.interactionTokens = Collections.unmodifiableList(interactionTokens);
+        }
+
+        public List<Token> getMetaDataTokens() {
+            return metaDataTokens;
+        }
+
+        public List<Token> getInteractionTokens() {
+            return interactionTokens;
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer.parser;
+
+import com.google.common.base.CharMatcher;
+import org.brokn.sequence.model.SymbolTable;
+
+import javax.annotation.Nullable;
+
+/**
+ * Index arithmetic over a single interaction line, shared by the Lane and interaction parsers.
+ * Gives the same results as splitting the line on its interaction token, without allocating the split parts;
+ * the Lane names and message are interned straight from the line, so only text not already in the symbol table is copied.
+ */
+final class InteractionLineScanner {
+
+    private static final CharMatcher WHITESPACE = CharMatcher.whitespace();
+
+    private static final String REPLY_TOKEN = "-" + InteractionParser.INTERACTION_TOKEN;
+    private static final String ASYNC_TOKEN = InteractionParser.INTERACTION_TOKEN + ">";
+    private static final String ASYNC_REPLY_TOKEN = REPLY_TOKEN + ">";
+
+    private InteractionLineScanner() {
+    }
+
+    static int arrowIndex(String line) {
+        return line.indexOf(InteractionParser.INTERACTION_TOKEN);
+    }
+
+    static boolean isReply(String line, int arrowIndex) {
+        return arrowIndex - 1 >= 0 && line.charAt(arrowIndex - 1) == '-';
+    }
+
+    static boolean isAsync(String line, int arrowIndex) {
+        return line.length() > arrowIndex + 2 && line.charAt(arrowIndex + 2) == '>';
+    }
+
+    /**
+     * The full interaction token, e.g. "-->>" for an async reply.
+     */
+    static String token(boolean reply, boolean async) {
+        if (reply) {
+            return async ? ASYNC_REPLY_TOKEN : REPLY_TOKEN;
+        }
+        return async ? ASYNC_TOKEN : InteractionParser.INTERACTION_TOKEN;
+    }
+
+    /**
+     * The first occurrence of the token; a reply token starts one character before the arrow.
+     */
+    static int tokenStart(int arrowIndex, boolean reply) {
+        return reply ? arrowIndex - 1 : arrowIndex;
+    }
+
+    /**
+     * The 'from' Lane name is everything before the token.
+     */
+    static String fromName(String line, int tokenStart, SymbolTable symbols) {
+        int start = trimStart(line, 0, tokenStart);
+        int end = trimEnd(line, start, tokenStart);
+        return symbols.symbol(line, start, end);
+    }
+
+    /**
+     * The 'to' Lane name runs from the token up to the next token or the end of the line, minus any message (":msg").
+     * Returns null if there is nothing between the tokens.
+     */
+    static @Nullable String toName(String line, String token, int tokenStart, SymbolTable symbols) {
+        int segmentStart = tokenStart + token.length();
+        int segmentEnd = line.indexOf(token, segmentStart);
+        if (segmentEnd < 0) {
+            segmentEnd = line.length();
+        }
+
+        int start = trimStart(line, segmentStart, segmentEnd);
+        int end = trimEnd(line, start, segmentEnd);
+        if (start == end) {
+            return null;
+        }
+
+        int messageIndex = line.indexOf(InteractionParser.INTERACTION_MESSAGE_TOKEN, start);
+        if (messageIndex >= 0 && messageIndex < end) {
+            end = messageIndex;
+        }
+
+        // String.trim() rules rather than Unicode whitespace, as applied to the name once split
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return symbols.symbol(line, start, end);
+    }
+
+    /**
+     * The message is everything after the first ":" on the line, or null if there is no message.
+     */
+    static @Nullable String message(String line, SymbolTable symbols) {
+        int messageIndex = line.indexOf(InteractionParser.INTERACTION_MESSAGE_TOKEN);
+        if (messageIndex < 0) {
+            return null;
+        }
+
+        // String.trim() rules
+        int start = messageIndex + 1;
+        int end = line.length();
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return symbols.symbol(line, start, end);
+    }
+
+    private static int trimStart(String line, int start, int end) {
+        while (start < end && WHITESPACE.matches(line.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(String line, int start, int end) {
+        while (end > start && WHITESPACE.matches(line.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+}
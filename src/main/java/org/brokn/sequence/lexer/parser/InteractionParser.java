@@ -17,20 +17,19 @@
 
 package org.brokn.sequence.lexer.parser;
 
-import com.google.common.base.Splitter;
 import com.google.common.flogger.FluentLogger;
+import org.brokn.sequence.lexer.Diagnostic;
+import org.brokn.sequence.lexer.Token;
+import org.brokn.sequence.lexer.Tokenizer;
 import org.brokn.sequence.model.Interaction;
 import org.brokn.sequence.model.Lane;
+import org.brokn.sequence.model.SymbolTable;
 
 import javax.annotation.Nonnull;
-import java.text.MessageFormat;
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
-import java.util.Optional;
-
-import static org.brokn.sequence.lexer.parser.LaneParser.parseFromNodeName;
-import static org.brokn.sequence.lexer.parser.LaneParser.parseToNodeName;
 
 /**
  * Parse interactions between Lanes.
@@ -44,92 +43,144 @@ public class InteractionParser {
 
     static final String INTERACTION_MESSAGE_TOKEN = ":";
 
-    private final Splitter newLineSplitter = Splitter.on("\n");
-
     public @Nonnull List<Interaction> parse(@Nonnull List<Lane> lanes, @Nonnull String input) {
+        return parseTokens(LaneTable.of(lanes), new Tokenizer().tokenize(input).getInteractionTokens(), new ArrayList<>());
+    }
+
+    /**
+     * Parse the interactions, resolving their Lanes from the given table.
+     * Badly formed lines and interactions with an unknown Lane are skipped, and reported in the diagnostics.
+     */
+    public @Nonnull List<Interaction> parseTokens(@Nonnull LaneTable laneTable, @Nonnull List<Token> interactionTokens, @Nonnull List<Diagnostic> diagnostics) {
+        return parseTokens(laneTable, interactionTokens, diagnostics, new SymbolTable());
+    }
+
+    /**
+     * Parse the interactions, interning names and messages in the given per-parse symbols.
+     * Repeated messages then share a single String, as do the names shared with the Lane pass.
+     */
+    public @Nonnull List<Interaction> parseTokens(@Nonnull LaneTable laneTable, @Nonnull List<Token> interactionTokens, @Nonnull List<Diagnostic> diagnostics, @Nonnull SymbolTable symbols) {
         List<Interaction> interactions = new ArrayList<>();
 
-        try {
-            List<String> lines = newLineSplitter.splitToList(input);
-            int interactionCount = 0;
-            for (String line : lines) {
-                // lines with -> are 'interactions', but they may be ->, -->, ->> or -->>
-                if (line.contains(INTERACTION_TOKEN)) {
-                    // parse interaction type
-                    EnumSet<Interaction.Modifiers> modifiers = parseInteractionType(line);
-                    String token = Interaction.formatToken(modifiers);
-
-                    // parse involved nodes
-                    String fromNode = parseFromNodeName(line, token);
-                    String toNode   = parseToNodeName(line, token);
-
-                    // parse interaction message
-                    String message = parseInteractionMessage(line);
-
-                    // Create Interaction and add to list.
-                    if(fromNode.length() > 0 && toNode.length() > 0) {
-                        interactions.add(new Interaction(laneByName(lanes, fromNode), laneByName(lanes, toNode), message, interactionCount, modifiers));
-                        interactionCount++;
-                        if(fromNode.equals(toNode)) {
-                            // self-referential so increment interaction count one more time, for the interaction back to self
-                            interactionCount++;
-                        }
-                    }
+        int interactionCount = 0;
+        for (Token interactionToken : interactionTokens) {
+            ParsedInteraction parsedInteraction = parseLine(interactionToken.getText(), interactionToken.getLineNumber(), diagnostics, symbols);
+
+            // Create Interaction and add to list.
+            if (parsedInteraction != null) {
+                Interaction interaction = createInteraction(laneTable, parsedInteraction, interactionCount, interactionToken.getLineNumber(), diagnostics);
+                if (interaction != null) {
+                    interactions.add(interaction);
+                    interactionCount += parsedInteraction.getRowCount();
                 }
             }
-
-        } catch (Exception ex) {
-            logger.atWarning().log("Exception while parsing interactions, exception: " + ex.getMessage());
         }
 
-        logger.atInfo().log("Found [" + interactions.size() + "] interactions " + interactions);
+        // the interactions themselves are only logged in the per-parse summary, when verbose
+        logger.atFine().log("Found [%d] interactions", interactions.size());
         return interactions;
 
     }
 
+    /**
+     * Parse a single interaction line into its Lane names, message and modifiers, without resolving the Lanes.
+     * Works on indices into the line, only the names and message are allocated.
+     * Returns null, adding to the diagnostics, if the line does not name both Lanes or has more than one interaction token.
+     */
+    public static @Nullable ParsedInteraction parseLine(String line, int lineNumber, List<Diagnostic> diagnostics) {
+        return parseLine(line, lineNumber, diagnostics, new SymbolTable());
+    }
+
+    /**
+     * Parse a single interaction line, interning the names and message in the given symbols;
+     * text already in the table is not allocated again.
+     */
+    public static @Nullable ParsedInteraction parseLine(String line, int lineNumber, List<Diagnostic> diagnostics, SymbolTable symbols) {
+        // parse interaction type
+        int arrowIndex = InteractionLineScanner.arrowIndex(line);
+        if (arrowIndex < 0) {
+            diagnostics.add(new Diagnostic(lineNumber, 0, Diagnostic.Severity.ERROR, "Expected an interaction token [" + INTERACTION_TOKEN + "]"));
+            return null;
+        }
+        boolean reply = InteractionLineScanner.isReply(line, arrowIndex);
+        boolean async = InteractionLineScanner.isAsync(line, arrowIndex);
+        String token = InteractionLineScanner.token(reply, async);
+        int tokenStart = InteractionLineScanner.tokenStart(arrowIndex, reply);
+
+        // the Lane pass skips a line with a second token, so it is reported as the cause rather than as unknown Lanes
+        int secondArrowIndex = line.indexOf(INTERACTION_TOKEN, arrowIndex + INTERACTION_TOKEN.length());
+        if (secondArrowIndex >= 0) {
+            boolean secondReply = InteractionLineScanner.isReply(line, secondArrowIndex);
+            String secondToken = InteractionLineScanner.token(secondReply, InteractionLineScanner.isAsync(line, secondArrowIndex));
+            int column = InteractionLineScanner.tokenStart(secondArrowIndex, secondReply) + 1;
+            diagnostics.add(new Diagnostic(lineNumber, column, Diagnostic.Severity.ERROR, "Interaction has a second interaction token [" + secondToken + "]"));
+            return null;
+        }
+
+        // parse involved nodes
+        String fromNode = InteractionLineScanner.fromName(line, tokenStart, symbols);
+        if (fromNode.isEmpty()) {
+            diagnostics.add(new Diagnostic(lineNumber, 1, Diagnostic.Severity.WARNING, "Interaction has no 'from' Lane"));
+            return null;
+        }
+
+        String toNode = InteractionLineScanner.toName(line, token, tokenStart, symbols);
+        if (toNode == null || toNode.isEmpty()) {
+            diagnostics.add(new Diagnostic(lineNumber, tokenStart + token.length() + 1, Diagnostic.Severity.WARNING, "Interaction has no 'to' Lane"));
+            return null;
+        }
+
+        // parse interaction message
+        String message = InteractionLineScanner.message(line, symbols);
+
+        EnumSet<Interaction.Modifiers> modifiers = EnumSet.noneOf(Interaction.Modifiers.class);
+        if (reply) {
+            modifiers.add(Interaction.Modifiers.REPLY);
+        }
+        if (async) {
+            modifiers.add(Interaction.Modifiers.ASYNC);
+        }
+        return new ParsedInteraction(fromNode, toNode, message, modifiers);
+    }
+
+    /**
+     * Create the Interaction for a parsed line, resolving the Lanes at each end.
+     * Returns null, adding to the diagnostics, if either Lane is unknown.
+     */
+    public static @Nullable Interaction createInteraction(LaneTable laneTable, ParsedInteraction parsedInteraction, int index, int lineNumber, List<Diagnostic> diagnostics) {
+        Lane fromLane = laneByName(laneTable, parsedInteraction.getFromName(), lineNumber, diagnostics);
+        Lane toLane = laneByName(laneTable, parsedInteraction.getToName(), lineNumber, diagnostics);
+        if (fromLane == null || toLane == null) {
+            return null;
+        }
+        return new Interaction(fromLane, toLane, parsedInteraction.getMessage(), index, EnumSet.copyOf(parsedInteraction.getModifiers()));
+    }
+
     public static EnumSet<Interaction.Modifiers> parseInteractionType(String line) {
         EnumSet<Interaction.Modifiers> modifiers = EnumSet.noneOf(Interaction.Modifiers.class);
-        int interactionTokenIndex = line.indexOf("->");
+        int interactionTokenIndex = InteractionLineScanner.arrowIndex(line);
 
-        if((interactionTokenIndex - 1 >= 0) && line.charAt(interactionTokenIndex-1) == '-') {
+        if (InteractionLineScanner.isReply(line, interactionTokenIndex)) {
             modifiers.add(Interaction.Modifiers.REPLY);
         }
 
-        if((line.length() > interactionTokenIndex + 2) && line.charAt(interactionTokenIndex+2) == '>') {
+        if (InteractionLineScanner.isAsync(line, interactionTokenIndex)) {
             modifiers.add(Interaction.Modifiers.ASYNC);
         }
 
         return modifiers;
     }
 
-    private String parseInteractionMessage(String toNode) throws InteractionParsingException {
-        String message = null;
-        try {
-            if (toNode.contains(":")) {
-                int messageStartIndex = toNode.indexOf(INTERACTION_MESSAGE_TOKEN);
-                message = toNode.substring(messageStartIndex + 1).trim();
-            }
-        } catch (IndexOutOfBoundsException ex) {
-            final String error = MessageFormat.format("Interaction message is incomplete, not parsing message from {0}", toNode);
-            logger.atWarning().log(error);
-            throw new InteractionParsingException(error, ex);
+    private static @Nullable Lane laneByName(LaneTable laneTable, String name, int lineNumber, List<Diagnostic> diagnostics) {
+        Lane lane = laneTable.lookup(name);
+        if (lane == null) {
+            diagnostics.add(unknownLane(lineNumber, name));
         }
-        return message;
-    }
-
-    private Lane laneByName(List<Lane> lanes, String name) {
-        Optional<Lane> laneOptional = lanes.stream().filter(lane -> lane.getName().equals(name)).findFirst();
-        return laneOptional.orElseThrow(() -> new IllegalStateException("LEXER :: Got interaction for unknown Lane [" + name + "]"));
+        return lane;
     }
 
-    static class InteractionParsingException extends Exception {
-        public InteractionParsingException(String message) {
-            super(message);
-        }
-
-        public InteractionParsingException(String message, Throwable cause) {
-            super(message, cause);
-        }
+    public static Diagnostic unknownLane(int lineNumber, String name) {
+        return new Diagnostic(lineNumber, 0, Diagnostic.Severity.ERROR, "Got interaction for unknown Lane [" + name + "]");
     }
 
 }
@@ -17,21 +17,17 @@
 
 package org.brokn.sequence.lexer.parser;
 
-import com.google.common.base.Splitter;
 import com.google.common.flogger.FluentLogger;
-import org.apache.commons.lang3.StringUtils;
+import org.brokn.sequence.lexer.Token;
+import org.brokn.sequence.lexer.Tokenizer;
 import org.brokn.sequence.model.Lane;
+import org.brokn.sequence.model.SymbolTable;
 
-import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
-import static com.google.common.collect.Lists.newArrayList;
-import static com.google.common.collect.Sets.newLinkedHashSet;
 import static org.brokn.sequence.lexer.parser.InteractionParser.*;
-import static org.brokn.sequence.model.Interaction.formatToken;
 
 /**
  * Parse unique Lanes from the input text.
@@ -42,84 +38,73 @@ public class LaneParser {
 
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
-    private final Splitter lineSplitter = Splitter.onPattern("\n").omitEmptyStrings().trimResults();
-
     public List<Lane> parse(final String input) {
-        List<Lane> foundLanes = new ArrayList<>();
-
-        try {
-            List<String> inputLines = lineSplitter.splitToList(input);
-            List<String> knownLanes = new ArrayList<>();
-
-            // iterate input, parsing [FirstLane] -> [SecondLane] : Message
-            for (String line : inputLines) {
-                if (line.contains(INTERACTION_TOKEN)) {
-                    knownLanes.addAll(parseLaneNames(line));
-                }
-            }
-
-            // create a new Lane for each unique lane name we found
-            List<String> uniqueLanes = newArrayList(newLinkedHashSet(knownLanes));
-            for (int i = 0; i < uniqueLanes.size(); i++) {
-                foundLanes.add(new Lane(i, uniqueLanes.get(i)));
-            }
-
-        } catch (Exception ex) {
-            logger.atWarning().log("Exception while parsing lanes, exception: " + ex.getMessage());
-        }
-
-        logger.atInfo().log("Found [" + foundLanes.size() + "] Lanes " + foundLanes);
-        return foundLanes;
+        return parseTokens(new Tokenizer().tokenize(input).getInteractionTokens()).getLanes();
     }
 
-    private List<String> parseLaneNames(String line) {
-        Set<String> laneNames = new LinkedHashSet<>();
-
-        try {
-            if (isValid(line)) {
-                final String token = formatToken(parseInteractionType(line));
-
-                // 'from' lane is the first entry
-                laneNames.add(parseFromNodeName(line, token));
+    /**
+     * Build the symbol table of Lanes, to be handed to the interaction pass.
+     */
+    public LaneTable parseTokens(final List<Token> interactionTokens) {
+        return parseTokens(interactionTokens, new SymbolTable());
+    }
 
-                // 'to' lane is the second entry, but any message (":msg") must be removed first
-                laneNames.add(parseToNodeName(line, token));
+    /**
+     * Build the symbol table of Lanes, interning the names in the given per-parse symbols.
+     */
+    public LaneTable parseTokens(final List<Token> interactionTokens, final SymbolTable symbols) {
+        List<String> knownLanes = new ArrayList<>();
 
-            }
-        } catch (InteractionParsingException ex) {
-            logger.atWarning().log("Exception thrown when parsing lane, parsed lane names [" + laneNames + "], message: " + ex.getMessage());
-            return newArrayList(laneNames);
+        // iterate input, parsing [FirstLane] -> [SecondLane] : Message
+        for (Token token : interactionTokens) {
+            knownLanes.addAll(parseLaneNames(token.getText().trim(), symbols));
         }
 
-        logger.atInfo().log("Parsed lane names: " + laneNames);
-        return newArrayList(laneNames);
+        // create a new Lane for each unique lane name we found
+        LaneTable laneTable = LaneTable.fromNames(knownLanes);
+        logger.atFine().log("Found [%d] Lanes", laneTable.size());
+        return laneTable;
     }
 
-    public static String parseFromNodeName(String line, String token) throws InteractionParsingException {
-        final List<String> strings = Splitter.on(token).trimResults().splitToList(line);
-        if(strings.size() == 0) {
-            String error = MessageFormat.format("Error parsing From node name from {0} with token {1}", line, token);
-            throw new InteractionParsingException(error);
-        }
-        return strings.get(0);
+    /**
+     * Parse the lane names from a single (trimmed) interaction line.
+     * A badly formed line only loses its own lane names, it does not stop the remaining lines from being parsed.
+     */
+    public List<String> parseLaneNames(String line) {
+        return parseLaneNames(line, new SymbolTable());
     }
 
-    public static String parseToNodeName(String line, String token) throws InteractionParsingException {
-        final List<String> strings = Splitter.on(token).trimResults().splitToList(line);
-        if(strings.size() < 2) {
-            String error = MessageFormat.format("Error parsing To node name from {0} with token {1}", line, token);
-            throw new InteractionParsingException(error);
+    /**
+     * Parse the lane names from a single (trimmed) interaction line, interning them in the given symbols.
+     */
+    public List<String> parseLaneNames(String line, SymbolTable symbols) {
+        if (!isValid(line)) {
+            return List.of();
         }
 
-        if(StringUtils.isEmpty(strings.get(1))) {
-            String error = MessageFormat.format("To node name is empty in line {0} with token {1}", line, token);
-            throw new InteractionParsingException(error);
+        int arrowIndex = InteractionLineScanner.arrowIndex(line);
+        if (arrowIndex < 0) {
+            // reported to the user as a diagnostic by the interaction pass; the line itself is not logged
+            logger.atFine().atMostEvery(1, TimeUnit.SECONDS).log("No interaction token when parsing lane");
+            return List.of(InteractionLineScanner.fromName(line, line.length(), symbols));
         }
 
-        if(strings.get(1).contains(":")) {
-            return strings.get(1).substring(0, strings.get(1).indexOf(":")).trim();
+        boolean reply = InteractionLineScanner.isReply(line, arrowIndex);
+        String token = InteractionLineScanner.token(reply, InteractionLineScanner.isAsync(line, arrowIndex));
+        int tokenStart = InteractionLineScanner.tokenStart(arrowIndex, reply);
+
+        // 'from' lane is the first entry
+        String fromName = InteractionLineScanner.fromName(line, tokenStart, symbols);
+
+        // 'to' lane is the second entry, less any message (":msg")
+        String toName = InteractionLineScanner.toName(line, token, tokenStart, symbols);
+        if (toName == null) {
+            logger.atFine().atMostEvery(1, TimeUnit.SECONDS).log("To node name is empty when parsing lane");
+            return List.of(fromName);
         }
-        return strings.get(1).trim();
+
+        logger.atFine().atMostEvery(1, TimeUnit.SECONDS).log("Parsed lane names: %s, %s", fromName, toName);
+        return fromName.equals(toName) ? List.of(fromName) : List.of(fromName, toName);
     }
 
     private boolean isValid(String line) {
@@ -140,7 +125,16 @@ public class LaneParser {
 
         // check that message token : is AFTER the toNode name
         if(line.contains(INTERACTION_TOKEN) && line.contains(INTERACTION_MESSAGE_TOKEN)) {
-            if(line.split(INTERACTION_TOKEN)[1].trim().startsWith(INTERACTION_MESSAGE_TOKEN)) {
+            int toNodeStart = line.indexOf(INTERACTION_TOKEN) + INTERACTION_TOKEN.length();
+            if(toNodeStart == line.length()) {
+                // nothing named after the token, only a message before it
+                return false;
+            }
+
+            while(toNodeStart < line.length() && line.charAt(toNodeStart) <= ' ') {
+                toNodeStart++;
+            }
+            if(line.startsWith(INTERACTION_MESSAGE_TOKEN, toNodeStart)) {
                 // first instance of : must be after the toNode name
                 return false;
             }
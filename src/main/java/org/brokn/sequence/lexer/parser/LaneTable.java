@@ -0,0 +1,109 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer.parser;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import org.brokn.sequence.model.Lane;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Symbol table of the Lanes in a diagram.
+ * Lanes are indexed in the order their names are first added, and are looked up by name in constant time.
+ */
+public class LaneTable {
+
+    private final Map<String, Lane> lanesByName = new HashMap<>();
+
+    private final List<Lane> lanes = new ArrayList<>();
+
+    /**
+     * Create a table from lane names in the order they were found; repeated names are ignored.
+     */
+    public static LaneTable fromNames(List<String> laneNames) {
+        LaneTable laneTable = new LaneTable();
+        laneNames.forEach(laneTable::add);
+        return laneTable;
+    }
+
+    /**
+     * Create a table from existing Lanes, keeping their indices.
+     */
+    public static LaneTable of(@Nullable List<Lane> lanes) {
+        LaneTable laneTable = new LaneTable();
+        if (lanes != null) {
+            for (Lane lane : lanes) {
+                if (laneTable.lanesByName.putIfAbsent(lane.getName(), lane) == null) {
+                    laneTable.lanes.add(lane);
+                }
+            }
+        }
+        return laneTable;
+    }
+
+    /**
+     * Add a lane name, returning the existing Lane if the name is already known.
+     */
+    public @Nonnull Lane add(@Nonnull String name) {
+        return lanesByName.computeIfAbsent(name, laneName -> {
+            Lane lane = new Lane(lanes.size(), laneName);
+            lanes.add(lane);
+            return lane;
+        });
+    }
+
+    public @Nullable Lane lookup(String name) {
+        return lanesByName.get(name);
+    }
+
+    public List<Lane> getLanes() {
+        return Collections.unmodifiableList(lanes);
+    }
+
+    public int size() {
+        return lanes.size();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LaneTable laneTable = (LaneTable) o;
+        return Objects.equal(lanes, laneTable.lanes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(lanes);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("lanes", lanes)
+                .toString();
+    }
+}
@@ -18,8 +18,16 @@
 package org.brokn.sequence.lexer.parser;
 
 import com.google.common.flogger.FluentLogger;
+import com.google.common.primitives.Floats;
+import org.brokn.sequence.lexer.Diagnostic;
+import org.brokn.sequence.lexer.Token;
+import org.brokn.sequence.lexer.Tokenizer;
 import org.brokn.sequence.model.MetaData;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 /**
  * MetaData Grammar:
  * :title My Title Here
@@ -38,44 +46,51 @@ public class MetaDataParser {
     public static final String FONT_SIZE_TOKEN = ":fontsize";
 
     public MetaData parse(String input) {
+        return parseTokens(new Tokenizer().tokenize(input).getMetaDataTokens());
+    }
+
+    public MetaData parseTokens(List<Token> metaDataTokens) {
+        return parseTokens(metaDataTokens, new ArrayList<>());
+    }
+
+    /**
+     * Parse the metadata, reporting values which can't be used in the diagnostics.
+     */
+    public MetaData parseTokens(List<Token> metaDataTokens, List<Diagnostic> diagnostics) {
         // parse title
         String title = null;
         String author = null;
         boolean showDate = false;
         float fontSize = -1;
-        try {
-            for (String line : input.split("\n")) {
-                if (line.trim().startsWith(TITLE_TOKEN)) {
-                    title = getTokenValue(line, TITLE_TOKEN);
+        for (Token token : metaDataTokens) {
+            String line = token.getText();
+            if (line.trim().startsWith(TITLE_TOKEN)) {
+                title = getTokenValue(line, TITLE_TOKEN);
 
-                } else if (line.startsWith(AUTHOR_TOKEN)) {
-                    author = getTokenValue(line, AUTHOR_TOKEN);
+            } else if (line.startsWith(AUTHOR_TOKEN)) {
+                author = getTokenValue(line, AUTHOR_TOKEN);
 
-                } else if (line.trim().equals(DATE_TOKEN)) {
-                    showDate = true;
+            } else if (line.trim().equals(DATE_TOKEN)) {
+                showDate = true;
 
-                } else if (line.trim().startsWith(FONT_SIZE_TOKEN)) {
-                    fontSize = getFontSize(line);
+            } else if (line.trim().startsWith(FONT_SIZE_TOKEN)) {
+                fontSize = getFontSize(token, diagnostics);
 
-                }
             }
-        } catch (Exception ex) {
-            logger.atWarning().log("Exception occurred when parsing MetaData, message: " + ex.getMessage());
         }
 
         MetaData metaData = new MetaData(title, author, showDate, fontSize);
-        logger.atInfo().log("Parsed " + metaData);
+        logger.atFine().log("Parsed %s", metaData);
         return metaData;
     }
 
-    private float getFontSize(String line) {
-        float fontSize = -1;
-        try {
-            String fontSizeString = getTokenValue(line, FONT_SIZE_TOKEN);
-            fontSize = Float.parseFloat(fontSizeString);
-
-        } catch (NumberFormatException | NullPointerException ex) {
-            logger.atWarning().log("Font token specified but font size is not parseable");
+    private float getFontSize(Token token, List<Diagnostic> diagnostics) {
+        String fontSizeString = getTokenValue(token.getText(), FONT_SIZE_TOKEN);
+        Float fontSize = Floats.tryParse(fontSizeString);
+        if (fontSize == null) {
+            logger.atFine().atMostEvery(1, TimeUnit.SECONDS).log("Font token specified but font size is not parseable");
+            diagnostics.add(new Diagnostic(token.getLineNumber(), 0, Diagnostic.Severity.WARNING, "Font size [" + fontSizeString + "] is not a number"));
+            return -1;
         }
 
         return fontSize;
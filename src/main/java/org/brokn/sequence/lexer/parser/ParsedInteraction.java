@@ -0,0 +1,92 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer.parser;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import org.brokn.sequence.model.Interaction;
+
+import java.util.EnumSet;
+
+/**
+ * The result of parsing a single interaction line, before the Lane names are resolved to Lanes.
+ */
+public class ParsedInteraction {
+
+    private final String fromName;
+    private final String toName;
+    private final String message;
+    private final EnumSet<Interaction.Modifiers> modifiers;
+
+    public ParsedInteraction(String fromName, String toName, String message, EnumSet<Interaction.Modifiers> modifiers) {
+        this.fromName = fromName;
+        this.toName = toName;
+        this.message = message;
+        this.modifiers = modifiers;
+    }
+
+    public String getFromName() {
+        return fromName;
+    }
+
+    public String getToName() {
+        return toName;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public EnumSet<Interaction.Modifiers> getModifiers() {
+        return modifiers;
+    }
+
+    /**
+     * Number of rows the Interaction occupies; self-referential interactions take a second row for the interaction back to self.
+     */
+    public int getRowCount() {
+        return fromName.equals(toName) ? 2 : 1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ParsedInteraction that = (ParsedInteraction) o;
+        return Objects.equal(fromName, that.fromName) &&
+                Objects.equal(toName, that.toName) &&
+                Objects.equal(message, that.message) &&
+                Objects.equal(modifiers, that.modifiers);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(fromName, toName, message, modifiers);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("fromName", fromName)
+                .add("toName", toName)
+                .add("message", message)
+                .add("modifiers", modifiers)
+                .toString();
+    }
+}
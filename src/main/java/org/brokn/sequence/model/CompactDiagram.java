@@ -0,0 +1,261 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.model;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import javax.annotation.Nullable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Primitive-backed storage for the Lanes and Interactions of a very large diagram.
+ * Each interaction is held as its from/to Lane ids, its index, a bitmask of its modifiers and the id of its message,
+ * rather than as an Interaction with its own String and EnumSet. Messages are interned while building, and each
+ * distinct message is stored once in a shared pool, however many interactions repeat it.
+ * {@link #getInteractions()} is a view, which creates each Interaction as it is read.
+ */
+public final class CompactDiagram {
+
+    public static final byte REPLY = 1;
+    public static final byte ASYNC = 1 << 1;
+    public static final byte SELFREF = 1 << 2;
+
+    // the modifier set for each combination of bits, shared by every view
+    private static final List<ImmutableSet<Interaction.Modifiers>> MODIFIER_SETS = createModifierSets();
+
+    private final List<Lane> lanes;
+    private final int size;
+    private final int[] fromLaneIds;
+    private final int[] toLaneIds;
+    private final int[] indices;
+    private final byte[] modifierBits;
+    private final int[] messageIds;
+    private final int[] messageOffsets;
+    private final int[] messageLengths;
+    private final String messagePool;
+    private final OptionalInt maxIndex;
+
+    private CompactDiagram(Builder builder) {
+        this.lanes = builder.lanes;
+        this.size = builder.size;
+        this.fromLaneIds = Arrays.copyOf(builder.fromLaneIds, size);
+        this.toLaneIds = Arrays.copyOf(builder.toLaneIds, size);
+        this.indices = Arrays.copyOf(builder.indices, size);
+        this.modifierBits = Arrays.copyOf(builder.modifierBits, size);
+        this.messageIds = Arrays.copyOf(builder.messageIds, size);
+
+        // pool the distinct messages; the builder's symbol table, with a String per message, is then dropped
+        String[] messages = builder.messages.toArray();
+        this.messageOffsets = new int[messages.length];
+        this.messageLengths = new int[messages.length];
+        StringBuilder messagePool = new StringBuilder();
+        for (int id = 0; id < messages.length; id++) {
+            messageOffsets[id] = messagePool.length();
+            messageLengths[id] = messages[id].length();
+            messagePool.append(messages[id]);
+        }
+        this.messagePool = messagePool.toString();
+        this.maxIndex = Arrays.stream(indices).max();
+    }
+
+    public List<Lane> getLanes() {
+        return lanes;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Lane getFromLane(int interaction) {
+        return lanes.get(fromLaneIds[interaction]);
+    }
+
+    public Lane getToLane(int interaction) {
+        return lanes.get(toLaneIds[interaction]);
+    }
+
+    public int getIndex(int interaction) {
+        return indices[interaction];
+    }
+
+    public boolean hasModifier(int interaction, byte modifier) {
+        return (modifierBits[interaction] & modifier) != 0;
+    }
+
+    public @Nullable String getMessage(int interaction) {
+        int messageId = messageIds[interaction];
+        if (messageId == SymbolTable.NO_SYMBOL) {
+            return null;
+        }
+        int offset = messageOffsets[messageId];
+        return messagePool.substring(offset, offset + messageLengths[messageId]);
+    }
+
+    /**
+     * The message id, which is the same for interactions with the same message, or {@link SymbolTable#NO_SYMBOL} if there is no message.
+     */
+    public int getMessageId(int interaction) {
+        return messageIds[interaction];
+    }
+
+    public int getDistinctMessageCount() {
+        return messageOffsets.length;
+    }
+
+    /**
+     * The highest interaction index, found without creating any Interaction views.
+     */
+    public OptionalInt getMaxIndex() {
+        return maxIndex;
+    }
+
+    public Interaction getInteraction(int interaction) {
+        return new Interaction(getFromLane(interaction), getToLane(interaction), getMessage(interaction), getIndex(interaction), MODIFIER_SETS.get(modifierBits[interaction]));
+    }
+
+    /**
+     * A read-only view of the interactions, each created when it is read.
+     */
+    public List<Interaction> getInteractions() {
+        return new InteractionView();
+    }
+
+    public static byte modifierBits(Set<Interaction.Modifiers> modifiers) {
+        byte bits = 0;
+        if (modifiers.contains(Interaction.Modifiers.REPLY)) {
+            bits |= REPLY;
+        }
+        if (modifiers.contains(Interaction.Modifiers.ASYNC)) {
+            bits |= ASYNC;
+        }
+        if (modifiers.contains(Interaction.Modifiers.SELFREF)) {
+            bits |= SELFREF;
+        }
+        return bits;
+    }
+
+    private static List<ImmutableSet<Interaction.Modifiers>> createModifierSets() {
+        ImmutableList.Builder<ImmutableSet<Interaction.Modifiers>> modifierSets = ImmutableList.builder();
+        for (int bits = 0; bits <= (REPLY | ASYNC | SELFREF); bits++) {
+            EnumSet<Interaction.Modifiers> modifiers = EnumSet.noneOf(Interaction.Modifiers.class);
+            if ((bits & REPLY) != 0) {
+                modifiers.add(Interaction.Modifiers.REPLY);
+            }
+            if ((bits & ASYNC) != 0) {
+                modifiers.add(Interaction.Modifiers.ASYNC);
+            }
+            if ((bits & SELFREF) != 0) {
+                modifiers.add(Interaction.Modifiers.SELFREF);
+            }
+            modifierSets.add(Sets.immutableEnumSet(modifiers));
+        }
+        return modifierSets.build();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("lanes", lanes)
+                .add("size", size)
+                .add("distinctMessages", messageOffsets.length)
+                .add("messagePoolLength", messagePool.length())
+                .toString();
+    }
+
+    private class InteractionView extends AbstractList<Interaction> implements RandomAccess {
+
+        @Override
+        public Interaction get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return getInteraction(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Appends interactions, in order, growing the arrays as needed.
+     */
+    public static class Builder {
+
+        private final List<Lane> lanes;
+        private int size = 0;
+        private int[] fromLaneIds = new int[16];
+        private int[] toLaneIds = new int[16];
+        private int[] indices = new int[16];
+        private byte[] modifierBits = new byte[16];
+        private int[] messageIds = new int[16];
+        private final SymbolTable messages = new SymbolTable();
+
+        public Builder(List<Lane> lanes) {
+            this.lanes = ImmutableList.copyOf(lanes);
+        }
+
+        /**
+         * Add an interaction between the Lanes with the given ids (their Lane index).
+         * SELFREF is added to the modifiers when both ids are the same, as for an Interaction.
+         */
+        public Builder add(int fromLaneId, int toLaneId, @Nullable String message, int index, byte modifiers) {
+            if (size == fromLaneIds.length) {
+                grow();
+            }
+
+            fromLaneIds[size] = fromLaneId;
+            toLaneIds[size] = toLaneId;
+            indices[size] = index;
+            modifierBits[size] = fromLaneId == toLaneId ? (byte) (modifiers | SELFREF) : modifiers;
+            messageIds[size] = message == null ? SymbolTable.NO_SYMBOL : messages.intern(message);
+            size++;
+            return this;
+        }
+
+        public Builder add(Interaction interaction) {
+            return add(interaction.getFromLane().getIndex(), interaction.getToLane().getIndex(), interaction.getMessage().orElse(null),
+                    interaction.getIndex(), modifierBits(interaction.getModifiers()));
+        }
+
+        public CompactDiagram build() {
+            return new CompactDiagram(this);
+        }
+
+        private void grow() {
+            int capacity = fromLaneIds.length * 2;
+            fromLaneIds = Arrays.copyOf(fromLaneIds, capacity);
+            toLaneIds = Arrays.copyOf(toLaneIds, capacity);
+            indices = Arrays.copyOf(indices, capacity);
+            modifierBits = Arrays.copyOf(modifierBits, capacity);
+            messageIds = Arrays.copyOf(messageIds, capacity);
+        }
+    }
+
+}
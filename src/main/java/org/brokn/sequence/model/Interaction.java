@@ -35,7 +35,7 @@ public class Interaction {
     private final Lane toLane;
     private final String message;
     private final int index;
-    private final EnumSet<Modifiers> modifiers;
+    private final ImmutableSet<Modifiers> modifiers;
 
     public enum Modifiers {
         REPLY, ASYNC, SELFREF
@@ -46,10 +46,21 @@ public class Interaction {
         this.toLane = toLane;
         this.message = message;
         this.index = index;
-        this.modifiers = modifiers;
         if(fromLane.equals(toLane)) {
-            this.modifiers.add(SELFREF);
+            modifiers.add(SELFREF);
         }
+        this.modifiers = Sets.immutableEnumSet(modifiers);
+    }
+
+    /**
+     * For views over a {@link CompactDiagram}, which already has the complete (shared) modifier set.
+     */
+    Interaction(Lane fromLane, Lane toLane, String message, int index, ImmutableSet<Modifiers> modifiers) {
+        this.fromLane = fromLane;
+        this.toLane = toLane;
+        this.message = message;
+        this.index = index;
+        this.modifiers = modifiers;
     }
 
     public Lane getFromLane() {
@@ -69,7 +80,7 @@ public class Interaction {
     }
 
     public ImmutableSet<Modifiers> getModifiers() {
-        return Sets.immutableEnumSet(modifiers);
+        return modifiers;
     }
 
     public static String formatToken(EnumSet<Interaction.Modifiers> modifiers) {
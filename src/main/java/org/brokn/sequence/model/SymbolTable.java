@@ -0,0 +1,124 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.model;
+
+import java.util.Arrays;
+
+/**
+ * Interns the lane names and messages of a diagram to small integer ids, keeping one String per distinct text.
+ * Text can be interned straight from a range of a line, so a name or message which has been seen before costs no allocation.
+ * Not thread safe; each parse (or parse chunk) has its own table.
+ */
+public final class SymbolTable {
+
+    public static final int NO_SYMBOL = -1;
+
+    private String[] symbols = new String[16];
+    private int[] hashes = new int[16];
+    private int size = 0;
+
+    // open addressing, each slot holds id + 1, or 0 when empty
+    private int[] slots = new int[32];
+
+    public int intern(String text) {
+        return intern(text, 0, text.length(), text.hashCode());
+    }
+
+    /**
+     * Intern the characters of text in [start, end).
+     */
+    public int intern(String text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        return intern(text, start, end, hash);
+    }
+
+    public String get(int id) {
+        return symbols[id];
+    }
+
+    /**
+     * The interned String for the characters of text in [start, end).
+     */
+    public String symbol(String text, int start, int end) {
+        // intern first, it may replace the symbols array
+        int id = intern(text, start, end);
+        return symbols[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The symbols, indexed by id.
+     */
+    public String[] toArray() {
+        return Arrays.copyOf(symbols, size);
+    }
+
+    private int intern(String text, int start, int end, int hash) {
+        int length = end - start;
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && symbols[id].length() == length
+                    && (symbols[id] == text || symbols[id].regionMatches(0, text, start, length))) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == symbols.length) {
+            symbols = Arrays.copyOf(symbols, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int id = size++;
+        symbols[id] = start == 0 && end == text.length() ? text : text.substring(start, end);
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+
+        // keep the table at most half full
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int mix(int hash) {
+        // spread the String hash, whose low bits are weak for short similar names
+        return hash ^ (hash >>> 16);
+    }
+
+}
@@ -17,43 +17,304 @@
 
 package org.brokn.sequence.rendering;
 
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.Nullable;
 import javax.swing.*;
 import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Shows a diagram, drawn off the event thread into a back buffer which is published when complete, so that a large
+ * diagram doesn't freeze the editor while it's laid out and drawn. Painting only copies the latest buffer to the screen.
+ * <p>
+ * The buffer holds the whole diagram when it fits in {@link #MAX_BUFFER_BYTES}, otherwise the rows around the visible
+ * part, which is drawn again as the view is scrolled away from them. It is drawn at the scale of the screen, with the
+ * component's font and the desktop's text hints, as painting straight onto the component would be.
+ */
 public class Canvas extends JPanel {
 
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+    // the most pixel memory the back buffer holds the whole diagram in
+    static final long MAX_BUFFER_BYTES = 64L * 1024 * 1024;
+
+    // one render at a time, the thread let go when idle
+    private final ThreadPoolExecutor renderer = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            new ThreadFactoryBuilder().setNameFormat("canvas-render-%d").setDaemon(true).build());
+
+    // the latest completed frame; only replaced by a frame from a later request
+    private final AtomicReference<Frame> frame = new AtomicReference<>();
+
+    // event thread only
     private RenderableDiagram renderableDiagram;
+    private long requested;
+    private Future<?> pendingRender;
 
     public Canvas() {
         setVisible(true);
         setSize(1, 1);
         setDoubleBuffered(true);
+        renderer.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * The diagram being shown, or null before the first parse.
+     */
+    public RenderableDiagram getModel() {
+        return this.renderableDiagram;
     }
 
+    /**
+     * Show the diagram, once it has been drawn; until then the previous one is shown. A render still in progress for a
+     * previous diagram is abandoned.
+     */
     public void updateModel(final RenderableDiagram model) {
-        RenderableDiagram previousModel = this.renderableDiagram;
-        this.renderableDiagram = model;
+        // compared by identity, as equality walks every interaction on the event thread; text parsed before comes back
+        // from the parse cache as the same diagram, which is kept as it is, along with its layout
+        if (model != this.renderableDiagram) {
+            this.renderableDiagram = model;
+            requestRender(model, getVisibleRect());
+        }
+    }
+
+    private void requestRender(RenderableDiagram model, Rectangle visible) {
+        Context context = currentContext();
+        long request = ++this.requested;
+        if (this.pendingRender != null) {
+            this.pendingRender.cancel(true);
+        }
+        this.pendingRender = this.renderer.submit(() -> {
+            try {
+                render(model, context, visible, request);
+            } catch (RuntimeException ex) {
+                logger.atSevere().withCause(ex).log("Failed to render diagram");
+            }
+        });
+    }
+
+    // on the render thread
+    private void render(RenderableDiagram model, Context context, Rectangle visible, long request) {
+        Dimension size = measure(model, context);
+        Rectangle area = bufferArea(size, visible, context);
+        if (area.isEmpty()) {
+            publish(new Frame(request, model, context, size, area, null));
+            return;
+        }
+
+        BufferedImage image = new BufferedImage(context.deviceWidth(area.width), context.deviceHeight(area.height), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g.setColor(Color.BLACK);
+            context.apply(g);
+            g.translate(-area.x, -area.y);
+            // drawn a band at a time, so that a stale render is given up between bands
+            for (int top = 0; top < image.getHeight(); top += ImageRenderer.BAND_HEIGHT) {
+                if (Thread.currentThread().isInterrupted()) {
+                    logger.atFine().log("Abandoned stale render [%d]", request);
+                    return;
+                }
+                // each band is clipped to its rows of image pixels, so that nothing drawn across two bands is drawn
+                // twice, even where the screen's scale puts a band's edge part way through a row of the diagram
+                int bottom = Math.min(top + ImageRenderer.BAND_HEIGHT, image.getHeight());
+                g.setClip(new Rectangle2D.Double(area.x, area.y + top / context.scaleY, area.width, (bottom - top) / context.scaleY));
+                model.draw(g);
+            }
+        } finally {
+            g.dispose();
+        }
+        publish(new Frame(request, model, context, size, area, image));
+    }
+
+    // measured as it is drawn, so that the layout computed here is the one drawn with
+    private static Dimension measure(RenderableDiagram model, Context context) {
+        Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).createGraphics();
+        try {
+            context.apply(g);
+            model.prepareGraphics(g);
+            return model.computeDiagramSize(g, false);
+        } finally {
+            g.dispose();
+        }
+    }
 
-        if (!model.equals(previousModel)) {
-            doLayout();
-            paintComponent(getGraphics());
+    // the whole diagram when it fits, otherwise the visible rows and as many again above and below them
+    private static Rectangle bufferArea(Dimension size, Rectangle visible, Context context) {
+        Rectangle diagram = new Rectangle(size);
+        Dimension deviceSize = new Dimension(context.deviceWidth(size.width), context.deviceHeight(size.height));
+        if (ImageRenderer.estimateImageBytes(deviceSize) <= MAX_BUFFER_BYTES) {
+            return diagram;
         }
+        long rowBytes = 4L * Math.max(deviceSize.width, 1) * Math.max(deviceSize.height, 1) / Math.max(size.height, 1);
+        int rows = (int) Math.min(Math.max(visible.height, 1) * 3L, MAX_BUFFER_BYTES / Math.max(rowBytes, 1));
+        int top = Math.max(0, visible.y + visible.height / 2 - rows / 2);
+        return new Rectangle(0, top, size.width, rows).intersection(diagram);
+    }
+
+    private void publish(Frame next) {
+        Frame published = this.frame.accumulateAndGet(next, (current, candidate) ->
+                current == null || candidate.request > current.request ? candidate : current);
+        if (published != next) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            if (!getPreferredSize().equals(next.size)) {
+                setPreferredSize(next.size);
+                revalidate();
+            }
+            repaint();
+        });
     }
 
     @Override
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
 
-        if (this.renderableDiagram != null) {
-            // update scale
-            Graphics2D g2 = (Graphics2D) g;
-            double scale = 1;
-            g2.scale(scale, scale);
+        Frame frame = this.frame.get();
+        if (frame == null) {
+            return;
+        }
+        if (frame.image != null) {
+            // the image is at the scale of the screen, so is drawn back one image pixel to one screen pixel
+            Graphics2D imageGraphics = (Graphics2D) g.create();
+            try {
+                imageGraphics.translate(frame.area.x, frame.area.y);
+                imageGraphics.scale(1 / frame.context.scaleX, 1 / frame.context.scaleY);
+                imageGraphics.drawImage(frame.image, 0, 0, null);
+            } finally {
+                imageGraphics.dispose();
+            }
+        }
 
-            // render the diagram
-            this.renderableDiagram.draw(g);
-            setPreferredSize(this.renderableDiagram.computeDiagramSize(g, false));
+        // scrolled beyond the rows buffered for the current diagram; they're drawn, and shown when ready
+        Rectangle clip = g.getClipBounds();
+        Rectangle shown = clip == null ? new Rectangle(frame.size) : clip.intersection(new Rectangle(frame.size));
+        boolean renderPending = this.pendingRender != null && !this.pendingRender.isDone();
+        if (frame.model != this.renderableDiagram || renderPending) {
+            return;
+        }
+        if (!shown.isEmpty() && !frame.area.contains(shown)) {
+            Rectangle visible = getVisibleRect();
+            requestRender(frame.model, visible.contains(shown) ? visible : shown);
+        } else if (!frame.context.equals(currentContext())) {
+            // moved to a screen of a different scale, or the look and feel changed
+            requestRender(frame.model, getVisibleRect());
         }
     }
 
+    private Context currentContext() {
+        GraphicsConfiguration configuration = getGraphicsConfiguration();
+        AffineTransform transform = configuration == null ? new AffineTransform() : configuration.getDefaultTransform();
+        Map<?, ?> desktopHints = (Map<?, ?>) Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+        return new Context(transform.getScaleX(), transform.getScaleY(), getFont(), desktopHints == null ? Map.of() : desktopHints);
+    }
+
+    /**
+     * What the buffer is drawn with, taken from the component on the event thread: the scale of its screen, its font,
+     * and the hints Swing draws text with. The diagram's own hints and font size are set over these as it is drawn.
+     */
+    private static final class Context {
+
+        private final double scaleX;
+        private final double scaleY;
+        private final @Nullable Font font;
+        private final Map<?, ?> hints;
+
+        Context(double scaleX, double scaleY, @Nullable Font font, Map<?, ?> hints) {
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+            this.font = font;
+            this.hints = hints;
+        }
+
+        void apply(Graphics2D g) {
+            g.addRenderingHints(hints);
+            if (font != null) {
+                g.setFont(font);
+            }
+            g.scale(scaleX, scaleY);
+        }
+
+        int deviceWidth(int width) {
+            return (int) Math.ceil(width * scaleX);
+        }
+
+        int deviceHeight(int height) {
+            return (int) Math.ceil(height * scaleY);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Context context = (Context) o;
+            return Double.compare(context.scaleX, scaleX) == 0 &&
+                    Double.compare(context.scaleY, scaleY) == 0 &&
+                    Objects.equal(font, context.font) &&
+                    Objects.equal(hints, context.hints);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(scaleX, scaleY, font, hints);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("scaleX", scaleX)
+                    .add("scaleY", scaleY)
+                    .add("font", font)
+                    .toString();
+        }
+
+    }
+
+    /**
+     * A completed render of a diagram, the part of it in the image, and the request it was drawn for.
+     */
+    private static final class Frame {
+
+        private final long request;
+        private final RenderableDiagram model;
+        private final Context context;
+        private final Dimension size;
+        private final Rectangle area;
+        private final @Nullable BufferedImage image;
+
+        Frame(long request, RenderableDiagram model, Context context, Dimension size, Rectangle area, @Nullable BufferedImage image) {
+            this.request = request;
+            this.model = model;
+            this.context = context;
+            this.size = size;
+            this.area = area;
+            this.image = image;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("request", request)
+                    .add("context", context)
+                    .add("size", size)
+                    .add("area", area)
+                    .toString();
+        }
+
+    }
+
 }
@@ -0,0 +1,216 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.rendering;
+
+import com.google.common.flogger.FluentLogger;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * Renders a diagram straight to an image, for the command line.
+ * The diagram is measured with the font metrics of an off-screen Graphics2D, so no component, window or
+ * display is ever needed and this works with java.awt.headless=true.
+ * An image which would need more than {@link #getMaxImageBytes()} of pixels is drawn and encoded as a series of
+ * horizontal strips instead, so memory stays bounded by the strip size however tall the diagram is.
+ */
+public final class ImageRenderer {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+    public static final String PNG_FORMAT = "png";
+
+    public static final String MAX_IMAGE_BYTES_PROPERTY = "sequence.render.maxImageBytes";
+
+    public static final long DEFAULT_MAX_IMAGE_BYTES = 256L * 1024 * 1024;
+
+    // pixels of TYPE_INT_RGB
+    private static final int BYTES_PER_PIXEL = 4;
+
+    // an interruptible render is drawn this many rows at a time
+    static final int BAND_HEIGHT = 512;
+
+    // each strip holds about this many bytes of pixels
+    static final int STRIP_BYTES = 16 * 1024 * 1024;
+
+    private ImageRenderer() {
+    }
+
+    /**
+     * Measure the diagram as it will be drawn, i.e. with its font and rendering hints.
+     */
+    public static Dimension measure(RenderableDiagram diagram) {
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scratch.createGraphics();
+        try {
+            diagram.prepareGraphics(g);
+            return diagram.computeDiagramSize(g, false);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Draw the diagram, black on white, onto an image of its measured size.
+     */
+    public static BufferedImage render(RenderableDiagram diagram) {
+        Dimension size = measure(diagram);
+        if (size.width <= 0 || size.height <= 0) {
+            throw new IllegalArgumentException("Diagram is too small to create an image " + size);
+        }
+
+        BufferedImage image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, size.width, size.height);
+            g.setColor(Color.BLACK);
+            diagram.draw(g);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Draw the diagram as {@link #render(RenderableDiagram)} does, but a band of {@value #BAND_HEIGHT} rows at a time,
+     * giving up between bands if the thread has been interrupted, e.g. by a cancelled render.
+     */
+    public static BufferedImage renderInterruptibly(RenderableDiagram diagram) throws InterruptedIOException {
+        Dimension size = measure(diagram);
+        if (size.width <= 0 || size.height <= 0) {
+            throw new IllegalArgumentException("Diagram is too small to create an image " + size);
+        }
+
+        BufferedImage image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, size.width, size.height);
+            g.setColor(Color.BLACK);
+            for (int top = 0; top < size.height; top += BAND_HEIGHT) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Cancelled");
+                }
+                // each band is clipped to its rows, so that nothing drawn across two bands is drawn twice
+                g.setClip(0, top, size.width, Math.min(BAND_HEIGHT, size.height - top));
+                diagram.draw(g);
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * The memory for the pixels of an image of the given size, which need not fit in a single BufferedImage.
+     */
+    public static long estimateImageBytes(Dimension size) {
+        return (long) size.width * size.height * BYTES_PER_PIXEL;
+    }
+
+    /**
+     * The most pixel memory an image is drawn with in one piece, {@value #DEFAULT_MAX_IMAGE_BYTES} unless the
+     * {@value #MAX_IMAGE_BYTES_PROPERTY} system property says otherwise.
+     */
+    public static long getMaxImageBytes() {
+        return Long.getLong(MAX_IMAGE_BYTES_PROPERTY, DEFAULT_MAX_IMAGE_BYTES);
+    }
+
+    /**
+     * Whether an image of the given size is drawn in strips, i.e. it is too big for memory or for a BufferedImage.
+     */
+    public static boolean isTiled(Dimension size) {
+        return estimateImageBytes(size) > getMaxImageBytes() || (long) size.width * size.height > Integer.MAX_VALUE;
+    }
+
+    public static void writePng(RenderableDiagram diagram, OutputStream out) throws IOException {
+        Dimension size = measure(diagram);
+        if (isTiled(size)) {
+            writeTiledPng(diagram, size, out);
+        } else {
+            encodePng(render(diagram), out);
+        }
+    }
+
+    public static void encodePng(BufferedImage image, OutputStream out) throws IOException {
+        if (!ImageIO.write(image, PNG_FORMAT, out)) {
+            throw new IOException("No image writer for " + PNG_FORMAT);
+        }
+    }
+
+    public static void writePng(RenderableDiagram diagram, File outputFile) throws IOException {
+        Dimension size = measure(diagram);
+        if (isTiled(size)) {
+            logger.atInfo().log("Writing [%d x %d] diagram to [%s] in strips, as its pixels need [%d] MB",
+                    size.width, size.height, outputFile, estimateImageBytes(size) >> 20);
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+                writeTiledPng(diagram, size, out);
+            }
+            return;
+        }
+
+        BufferedImage image = render(diagram);
+        logger.atInfo().log("Writing [%d x %d] diagram to [%s]", image.getWidth(), image.getHeight(), outputFile);
+        if (!ImageIO.write(image, PNG_FORMAT, outputFile)) {
+            throw new IOException("No image writer for " + PNG_FORMAT);
+        }
+    }
+
+    /**
+     * Draw the diagram one horizontal strip at a time, translated so that each strip's rows land in the same small
+     * image, drawing only the interactions in the strip and streaming its rows to the encoder.
+     */
+    static void writeTiledPng(RenderableDiagram diagram, Dimension size, OutputStream out) throws IOException {
+        if (size.width <= 0 || size.height <= 0) {
+            throw new IllegalArgumentException("Diagram is too small to create an image " + size);
+        }
+
+        int stripHeight = (int) Math.max(1, Math.min(size.height, STRIP_BYTES / ((long) size.width * BYTES_PER_PIXEL)));
+        writeTiledPng(diagram, size, stripHeight, out);
+    }
+
+    static void writeTiledPng(RenderableDiagram diagram, Dimension size, int stripHeight, OutputStream out) throws IOException {
+        BufferedImage strip = new BufferedImage(size.width, stripHeight, BufferedImage.TYPE_INT_RGB);
+        try (PngStripWriter writer = new PngStripWriter(out, size.width, size.height)) {
+            for (int top = 0; top < size.height; top += stripHeight) {
+                int rows = Math.min(stripHeight, size.height - top);
+                Graphics2D g = strip.createGraphics();
+                try {
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, size.width, stripHeight);
+                    g.setColor(Color.BLACK);
+                    g.translate(0, -top);
+                    diagram.draw(g, top, top + rows);
+                } finally {
+                    g.dispose();
+                }
+                writer.writeRows(strip, rows);
+            }
+        }
+    }
+
+}
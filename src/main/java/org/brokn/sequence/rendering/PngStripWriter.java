@@ -0,0 +1,185 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.rendering;
+
+import java.awt.image.BufferedImage;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes an 8-bit RGB PNG a strip of rows at a time, so that an image far larger than a single BufferedImage can be
+ * encoded while only one strip is ever held. Rows use the Up filter, which makes the vertical lanes compress to
+ * almost nothing, and the fastest deflate level, as these images run to gigabytes of raw rows.
+ */
+final class PngStripWriter implements AutoCloseable {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final byte FILTER_UP = 2;
+
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final DeflaterOutputStream imageData;
+
+    // the pixels of the row being written and the bytes of the previous row, which the Up filter subtracts
+    private final int[] pixels;
+    private final byte[] row;
+    private final byte[] previousRow;
+
+    private int rowsWritten;
+
+    PngStripWriter(OutputStream out, int width, int height) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image is too small to encode [" + width + " x " + height + "]");
+        }
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        this.pixels = new int[width];
+        this.row = new byte[1 + width * 3];
+        this.previousRow = new byte[1 + width * 3];
+        this.imageData = new DeflaterOutputStream(new ChunkOutputStream("IDAT"), deflater, CHUNK_SIZE);
+
+        this.out.write(SIGNATURE);
+        try (DataOutputStream header = new DataOutputStream(new ChunkOutputStream("IHDR"))) {
+            header.writeInt(width);
+            header.writeInt(height);
+            header.writeByte(8);    // bit depth
+            header.writeByte(2);    // colour type: RGB
+            header.writeByte(0);    // compression: deflate
+            header.writeByte(0);    // filter method: adaptive
+            header.writeByte(0);    // interlace: none
+        }
+    }
+
+    /**
+     * Encode the first rows of the strip, which must be a TYPE_INT_RGB image as wide as this one.
+     */
+    void writeRows(BufferedImage strip, int rows) throws IOException {
+        if (strip.getWidth() != width || strip.getType() != BufferedImage.TYPE_INT_RGB) {
+            throw new IllegalArgumentException("Strip must be a " + width + " pixel wide RGB image");
+        }
+        if (rowsWritten + rows > height) {
+            throw new IllegalStateException("Image is only " + height + " rows tall");
+        }
+
+        for (int y = 0; y < rows; y++) {
+            strip.getRaster().getDataElements(0, y, width, 1, pixels);
+            row[0] = FILTER_UP;
+            for (int x = 0, i = 1; x < width; x++) {
+                int pixel = pixels[x];
+                byte red = (byte) (pixel >> 16);
+                byte green = (byte) (pixel >> 8);
+                byte blue = (byte) pixel;
+                row[i] = (byte) (red - previousRow[i]);
+                previousRow[i++] = red;
+                row[i] = (byte) (green - previousRow[i]);
+                previousRow[i++] = green;
+                row[i] = (byte) (blue - previousRow[i]);
+                previousRow[i++] = blue;
+            }
+            imageData.write(row);
+        }
+        rowsWritten += rows;
+    }
+
+    /**
+     * Finish the image data and write the end of the image; every row must have been written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rowsWritten != height) {
+                throw new IllegalStateException("Only " + rowsWritten + " of " + height + " rows were written");
+            }
+            imageData.close();
+            new ChunkOutputStream("IEND").close();
+            out.flush();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Buffers what is written to it and writes it as chunks of the given type, of at most CHUNK_SIZE bytes.
+     */
+    private final class ChunkOutputStream extends OutputStream {
+
+        private final byte[] type;
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int length;
+        private boolean written;
+
+        ChunkOutputStream(String type) {
+            this.type = type.getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (length == buffer.length) {
+                writeChunk();
+            }
+            buffer[length++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int count) throws IOException {
+            while (count > 0) {
+                if (length == buffer.length) {
+                    writeChunk();
+                }
+                int copied = Math.min(count, buffer.length - length);
+                System.arraycopy(bytes, offset, buffer, length, copied);
+                length += copied;
+                offset += copied;
+                count -= copied;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            // an empty chunk is only written when nothing else was, as IEND is
+            if (length > 0 || !written) {
+                writeChunk();
+            }
+        }
+
+        private void writeChunk() throws IOException {
+            CRC32 crc = new CRC32();
+            crc.update(type);
+            crc.update(buffer, 0, length);
+            out.writeInt(length);
+            out.write(type);
+            out.write(buffer, 0, length);
+            out.writeInt((int) crc.getValue());
+            length = 0;
+            written = true;
+        }
+    }
+
+}
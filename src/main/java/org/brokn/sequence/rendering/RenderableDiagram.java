@@ -19,69 +19,240 @@ package org.brokn.sequence.rendering;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.brokn.sequence.model.CompactDiagram;
 import org.brokn.sequence.model.Interaction;
 import org.brokn.sequence.model.Lane;
 import org.brokn.sequence.model.MetaData;
 import org.brokn.sequence.rendering.interaction.RenderableInteraction;
+import org.brokn.sequence.rendering.interaction.RenderableInteractionFactory;
 import org.brokn.sequence.rendering.lane.RenderableLane;
+import org.brokn.sequence.rendering.layout.DiagramLayout;
+import org.brokn.sequence.rendering.layout.DisplayList;
+import org.brokn.sequence.rendering.layout.InteractionLayout;
+import org.brokn.sequence.rendering.layout.LaneLayout;
+import org.brokn.sequence.rendering.layout.TextRun;
 import org.brokn.sequence.rendering.utils.LayoutHelper;
+import org.brokn.sequence.rendering.utils.TextMetrics;
 
 import java.awt.*;
+import java.awt.font.FontRenderContext;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.OptionalInt;
+import java.util.function.IntUnaryOperator;
 
 import static org.brokn.sequence.rendering.interaction.RenderableInteractionFactory.create;
+import static org.brokn.sequence.rendering.utils.LayoutHelper.ARROWHEAD_LENGTH;
+import static org.brokn.sequence.rendering.utils.LayoutHelper.CANVAS_VERTICAL_GAP;
+import static org.brokn.sequence.rendering.utils.LayoutHelper.MESSAGE_PADDING;
 
 public class RenderableDiagram {
 
     // Model objects
+    // the heap held for each interaction once drawn, less its text: its objects, renderable, layout and display list
+    // ops, or only its compact encoding, as measured on a 64-bit JVM with compressed oops
+    private static final int INTERACTION_BYTES = 512;
+    private static final int COMPACT_INTERACTION_BYTES = 48;
+    private static final int LANE_BYTES = 256;
+
     private final MetaData metaData;
     private final List<Lane> lanes = new ArrayList<>();
-    private final List<Interaction> interactions = new ArrayList<>();
+    private final List<Interaction> interactions;
+    private final OptionalInt maxInteractionIndex;
 
     // Renderable objects
     private RenderableMetaData renderableMetaData;
     private final List<RenderableLane> renderableLanes = new ArrayList<>();
-    private final List<RenderableInteraction> renderableInteractions = new ArrayList<>();
+    private final List<RenderableInteraction> renderableInteractions;
+
+    // the index of the interaction at each position, without creating it, so that a band of rows can be found quickly
+    private final IntUnaryOperator interactionIndex;
+    private final boolean indexesAscending;
+
+    // whether the interactions are held compactly, so their layouts are computed as they're read rather than held
+    private final boolean compact;
+
+    // Layout, computed once for the font it was measured with; replaced as a whole, so that it can be read by any thread
+    private volatile DiagramLayout layout;
+
+    // The layout recorded as a display list, replayed by every paint and export until the layout is replaced
+    private volatile DisplayList displayList;
 
     public RenderableDiagram(MetaData metaData, List<Lane> lanes, List<Interaction> interactions) {
         this.metaData = metaData;
         this.lanes.addAll(lanes);
-        this.interactions.addAll(interactions);
+        this.interactions = new ArrayList<>(interactions);
+        this.maxInteractionIndex = this.interactions.stream().mapToInt(Interaction::getIndex).max();
+
+        initRenderables();
+        this.renderableInteractions = new ArrayList<>(this.interactions.size());
+        this.interactions.forEach(interaction -> renderableInteractions.add(create(interaction)));
+        this.interactionIndex = position -> this.interactions.get(position).getIndex();
+        this.indexesAscending = isAscending(this.interactionIndex, this.interactions.size());
+        this.compact = false;
+    }
+
+    /**
+     * A diagram over the compact model, for very large diagrams.
+     * Interactions, and their renderables, are only created as they are drawn.
+     */
+    public RenderableDiagram(MetaData metaData, CompactDiagram compactDiagram) {
+        this.metaData = metaData;
+        this.lanes.addAll(compactDiagram.getLanes());
+        this.interactions = compactDiagram.getInteractions();
+        this.maxInteractionIndex = compactDiagram.getMaxIndex();
 
         initRenderables();
+        this.renderableInteractions = Lists.transform(this.interactions, RenderableInteractionFactory::create);
+        this.interactionIndex = compactDiagram::getIndex;
+        this.indexesAscending = isAscending(this.interactionIndex, compactDiagram.size());
+        this.compact = true;
+    }
+
+    public MetaData getMetaData() {
+        return metaData;
+    }
+
+    public List<Lane> getLanes() {
+        return Collections.unmodifiableList(lanes);
+    }
+
+    public List<Interaction> getInteractions() {
+        return Collections.unmodifiableList(interactions);
     }
 
+    /**
+     * A rough estimate of the heap the diagram holds once it has been drawn, its layout and display list included,
+     * less its text; enough to bound a cache of diagrams, which would otherwise only see their source grow.
+     */
+    public long estimateRetainedBytes() {
+        return (long) this.interactions.size() * (this.compact ? COMPACT_INTERACTION_BYTES : INTERACTION_BYTES)
+                + (long) this.lanes.size() * LANE_BYTES;
+    }
+
+    /**
+     * Draw the diagram, or only the part of it within the clip, so that painting a scrolled view of a large diagram
+     * costs what is visible rather than the whole of it.
+     */
     public void draw(Graphics g) {
-        this.setRenderingHints(g);
-        this.setFontSize(g, this.metaData.getFontSize());
+        this.prepareGraphics(g);
+        if (this.compact) {
+            this.getLayout(g).paint(g);
+        } else {
+            this.getDisplayList(g).replay(g);
+        }
+    }
+
+    /**
+     * Draw only what falls within the rows [top, bottom) of the diagram.
+     */
+    public void draw(Graphics g, int top, int bottom) {
+        this.prepareGraphics(g);
+        if (this.compact) {
+            this.getLayout(g).paint(g, top, bottom);
+        } else {
+            this.getDisplayList(g).replay(g, top, bottom);
+        }
+    }
 
-        // Draw MetaData
-        this.renderableMetaData.draw(g);
+    /**
+     * The diagram recorded as a display list, for a graphics prepared with {@link #prepareGraphics(Graphics)}.
+     * It is recorded once per layout, so that the screen, the clipboard and exports all replay the same recording.
+     * A compact diagram is better painted from its layout, as recording it holds the ops of every interaction.
+     */
+    public DisplayList getDisplayList(Graphics g) {
+        DiagramLayout layout = this.getLayout(g);
+        DisplayList displayList = this.displayList;
+        if (displayList == null || displayList.getLayout() != layout) {
+            displayList = layout.record();
+            this.displayList = displayList;
+        }
+        return displayList;
+    }
+
+    /**
+     * The layout of the diagram for the graphics' font and font render context, which must have been prepared with
+     * {@link #prepareGraphics(Graphics)}. It is computed once, then again only for a different font.
+     */
+    public DiagramLayout getLayout(Graphics g) {
+        Font font = g.getFont();
+        FontRenderContext fontRenderContext = ((Graphics2D) g).getFontRenderContext();
+        DiagramLayout layout = this.layout;
+        if (layout == null || !layout.isFor(font, fontRenderContext)) {
+            layout = this.computeLayout(g);
+            this.layout = layout;
+        }
+        return layout;
+    }
+
+    private DiagramLayout computeLayout(Graphics g) {
+        Font font = g.getFont();
+        FontRenderContext fontRenderContext = ((Graphics2D) g).getFontRenderContext();
+
+        // MetaData
+        List<TextRun> header = this.renderableMetaData.layout(g);
         int headerOffset = this.renderableMetaData.calculateHeaderHeight(g);
 
-        // Draw Lanes
-        int totalInteractions = 1 + this.interactions.stream().mapToInt(Interaction::getIndex).max().orElse(1);
-        this.renderableLanes.forEach(renderableLane -> renderableLane.draw(g, headerOffset, totalInteractions));
+        // Lanes
+        int totalInteractions = 1 + this.maxInteractionIndex.orElse(1);
+        List<LaneLayout> laneLayouts = new ArrayList<>(this.renderableLanes.size());
+        this.renderableLanes.forEach(renderableLane -> laneLayouts.add(renderableLane.layout(g, headerOffset, totalInteractions)));
 
-        // Draw Interactions
-        this.renderableInteractions.forEach(renderableInteraction -> renderableInteraction.draw(g, headerOffset));
+        // Interactions; the font metrics are kept, rather than the graphics, by the layouts computed as they are read
+        FontMetrics fontMetrics = g.getFontMetrics();
+        List<InteractionLayout> interactionLayouts = Lists.transform(this.renderableInteractions,
+                renderableInteraction -> renderableInteraction.layout(fontMetrics, headerOffset));
+        if (!this.compact) {
+            interactionLayouts = ImmutableList.copyOf(interactionLayouts);
+        }
+
+        // an interaction's message is drawn above its line, and a self-referential one extends a row below it
+        int extentAbove = fontMetrics.getMaxAscent() + MESSAGE_PADDING + ARROWHEAD_LENGTH + 1;
+        int extentBelow = CANVAS_VERTICAL_GAP + ARROWHEAD_LENGTH + fontMetrics.getMaxDescent() + 1;
+
+        return new DiagramLayout(font, fontRenderContext, measureDiagramSize(headerOffset), headerOffset, header,
+                laneLayouts, interactionLayouts, this.interactionIndex, this.indexesAscending, extentAbove, extentBelow);
+    }
+
+    private static boolean isAscending(IntUnaryOperator interactionIndex, int size) {
+        for (int position = 1; position < size; position++) {
+            if (interactionIndex.applyAsInt(position) < interactionIndex.applyAsInt(position - 1)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public Dimension computeDiagramSize(Graphics g, boolean drawBorder) {
-        int height = renderableMetaData.calculateHeaderHeight(g);
+        // the diagram doesn't change, so the size is read from the layout, which is only computed again for a different font
+        Dimension diagramDimensions = this.getLayout(g).getSize();
+        if (drawBorder) {
+            g.drawRect(0, 0, diagramDimensions.width, diagramDimensions.height);
+        }
+
+        return diagramDimensions;
+    }
+
+    private Dimension measureDiagramSize(int headerOffset) {
+        int height = headerOffset;
         height += RenderableLane.getVerticalLinePadding();
-        height += (1 + this.interactions.stream().mapToInt(Interaction::getIndex).max().orElse(0) * LayoutHelper.CANVAS_VERTICAL_GAP);
+        height += (1 + this.maxInteractionIndex.orElse(0) * LayoutHelper.CANVAS_VERTICAL_GAP);
         height += 50;
 
         int width = LayoutHelper.LANE_WIDTH * renderableLanes.size() + (LayoutHelper.LANE_GAP * renderableLanes.size());
 
-        Dimension diagramDimensions = new Dimension(width, height);
-        if (drawBorder) {
-            g.drawRect(0, 0, diagramDimensions.width, diagramDimensions.height);
-        }
+        return new Dimension(width, height);
+    }
 
-        return diagramDimensions;
+    /**
+     * Set the rendering hints and font the diagram is drawn with, so that it can be measured before it is drawn.
+     */
+    public void prepareGraphics(Graphics g) {
+        this.setRenderingHints(g);
+        this.setFontSize(g, this.metaData.getFontSize());
     }
 
     private void setRenderingHints(Graphics g) {
@@ -98,34 +269,32 @@ public class RenderableDiagram {
 
     private void setFontSize(Graphics g, float fontSize) {
         if (fontSize > 0) {
-            g.setFont(g.getFont().deriveFont(fontSize));
+            g.setFont(TextMetrics.shared().deriveFont(g.getFont(), fontSize));
         } else {
-            g.setFont(g.getFont().deriveFont(14f));
+            g.setFont(TextMetrics.shared().deriveFont(g.getFont(), 14f));
         }
     }
 
     private void initRenderables() {
         this.renderableMetaData = new RenderableMetaData(metaData);
         this.lanes.forEach(lane -> renderableLanes.add(new RenderableLane(lane)));
-        this.interactions.forEach(interaction -> renderableInteractions.add(create(interaction)));
     }
 
     @Override
     public boolean equals(Object o) {
+        // the renderables are created from the model, so comparing the model is enough;
+        // names and messages are interned per parse, so most String comparisons are by reference
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         RenderableDiagram that = (RenderableDiagram) o;
         return Objects.equal(metaData, that.metaData) &&
                 Objects.equal(lanes, that.lanes) &&
-                Objects.equal(interactions, that.interactions) &&
-                Objects.equal(renderableMetaData, that.renderableMetaData) &&
-                Objects.equal(renderableLanes, that.renderableLanes) &&
-                Objects.equal(renderableInteractions, that.renderableInteractions);
+                Objects.equal(interactions, that.interactions);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(metaData, lanes, interactions, renderableMetaData, renderableLanes, renderableInteractions);
+        return Objects.hashCode(metaData, lanes, interactions);
     }
 
     @Override
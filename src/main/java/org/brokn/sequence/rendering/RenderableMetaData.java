@@ -20,15 +20,19 @@ package org.brokn.sequence.rendering;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
 import org.brokn.sequence.model.MetaData;
+import org.brokn.sequence.rendering.layout.TextRun;
 import org.brokn.sequence.rendering.utils.LayoutHelper;
+import org.brokn.sequence.rendering.utils.TextMetrics;
 
 import java.awt.*;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.brokn.sequence.rendering.utils.LayoutHelper.DIAGRAM_PADDING;
 import static org.brokn.sequence.rendering.utils.LayoutHelper.HEADER_V_GAP;
-import static org.brokn.sequence.rendering.utils.LayoutUtils.drawStringWithFont;
 import static org.brokn.sequence.rendering.utils.LayoutUtils.getStringBounds;
+import static org.brokn.sequence.rendering.utils.LayoutUtils.getStringWidth;
 
 public class RenderableMetaData {
 
@@ -38,45 +42,53 @@ public class RenderableMetaData {
         this.model = metaData;
     }
 
-    public void draw(final Graphics g) {
+    /**
+     * Lay out the title, author and date, each that the diagram has, one below the other.
+     */
+    public List<TextRun> layout(final Graphics g) {
+        List<TextRun> header = new ArrayList<>(3);
 
-        // draw title
+        // each height is measured once per layout
+        int titleHeight = getTitleHeight(g);
+        int authorHeight = getAuthorHeight(g);
+
+        // title
         if (this.model.getTitle() != null) {
-            Font titleFont = getTitleFont(g);
-            int titleHeight = getStringBounds((Graphics2D) g, titleFont, this.model.getTitle()).height;
-            drawStringWithFont(g, titleFont, DIAGRAM_PADDING, DIAGRAM_PADDING + titleHeight, this.model.getTitle());
+            header.add(textRun(g, getTitleFont(g), this.model.getTitle(), DIAGRAM_PADDING + titleHeight));
         }
 
-        // draw author name
+        // author name
         if (this.model.getAuthor() != null) {
-            int heightSoFar = DIAGRAM_PADDING + getTitleHeight(g) + (getTitleHeight(g) > 0 ? HEADER_V_GAP : 0);
-            int authorHeight = getStringBounds((Graphics2D) g, g.getFont(), this.model.getAuthor()).height;
+            int heightSoFar = DIAGRAM_PADDING + titleHeight + (titleHeight > 0 ? HEADER_V_GAP : 0);
             int y = heightSoFar + authorHeight;
-            g.drawString(this.model.getAuthor(), DIAGRAM_PADDING, y);
+            header.add(textRun(g, g.getFont(), this.model.getAuthor(), y));
         }
 
-        // draw current date (10th June 2020 so no regional ambiguity)
+        // current date (10th June 2020 so no regional ambiguity)
         if (this.model.isShowDate()) {
             int heightSoFar = DIAGRAM_PADDING +
-                    getTitleHeight(g) + (getTitleHeight(g) > 0 ? HEADER_V_GAP : 0) +
-                    getAuthorHeight(g) + (getAuthorHeight(g) > 0 ? HEADER_V_GAP : 0);
+                    titleHeight + (titleHeight > 0 ? HEADER_V_GAP : 0) +
+                    authorHeight + (authorHeight > 0 ? HEADER_V_GAP : 0);
             int dateHeight = getStringBounds((Graphics2D) g, g.getFont(), "date").height;
             int y = heightSoFar + dateHeight;
-            g.drawString(LocalDate.now().toString(), DIAGRAM_PADDING, y);
+            header.add(textRun(g, g.getFont(), LocalDate.now().toString(), y));
         }
+        return header;
+    }
+
+    private static TextRun textRun(Graphics g, Font font, String text, int y) {
+        return new TextRun(font, text, DIAGRAM_PADDING, y, getStringWidth(g, font, text), g.getFontMetrics(font));
     }
 
     public int calculateHeaderHeight(Graphics g) {
         int totalHeight = LayoutHelper.RM_VERTICAL_GAP;
 
         //title
-        if (this.model.getTitle() != null) {
-            totalHeight += getStringBounds((Graphics2D) g, getTitleFont(g), this.model.getTitle()).height;
-        }
+        totalHeight += getTitleHeight(g);
 
         // author
         if (this.model.getAuthor() != null) {
-            totalHeight += getStringBounds((Graphics2D) g, g.getFont(), this.model.getAuthor()).height;
+            totalHeight += getAuthorHeight(g);
             totalHeight += LayoutHelper.RM_VERTICAL_GAP;
         }
 
@@ -100,7 +112,7 @@ public class RenderableMetaData {
     }
 
     private Font getTitleFont(final Graphics g) {
-        return g.getFont().deriveFont(Font.BOLD, 20);
+        return TextMetrics.shared().deriveFont(g.getFont(), Font.BOLD, 20);
     }
 
     @Override
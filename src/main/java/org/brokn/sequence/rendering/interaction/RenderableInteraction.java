@@ -1,11 +1,14 @@
 package org.brokn.sequence.rendering.interaction;
 
 import org.brokn.sequence.model.Interaction;
+import org.brokn.sequence.rendering.layout.InteractionLayout;
+import org.brokn.sequence.rendering.layout.TextRun;
 
-import javax.swing.*;
+import javax.annotation.Nullable;
 import java.awt.*;
 
 import static org.brokn.sequence.rendering.utils.LayoutHelper.MESSAGE_PADDING;
+import static org.brokn.sequence.rendering.utils.LayoutUtils.getStringWidth;
 
 public abstract class RenderableInteraction {
 
@@ -15,20 +18,18 @@ public abstract class RenderableInteraction {
         this.interaction = interaction;
     }
 
-    public void draw(Graphics g, int verticalOffset) {
-        if(this.interaction.getModifiers().contains(Interaction.Modifiers.REPLY)) {
-            Stroke dashed = new BasicStroke(1, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0, new float[]{5}, 0);
-            ((Graphics2D)g).setStroke(dashed);
-        }
-    }
+    /**
+     * Lay out the interaction in its row below the header, measuring its message with the font metrics.
+     */
+    public abstract InteractionLayout layout(FontMetrics fontMetrics, int verticalOffset);
 
-    protected void renderInteractionMessage(Graphics g, int interactionFromXPosition, int interactionFromYPosition, int interactionToXPosition) {
-        this.interaction.getMessage().ifPresent(message -> {
+    protected @Nullable TextRun layoutMessage(FontMetrics fontMetrics, int interactionFromXPosition, int interactionFromYPosition, int interactionToXPosition) {
+        return this.interaction.getMessage().map(message -> {
             boolean isRightFacing = interactionFromXPosition < interactionToXPosition;
-            int messageWidth = SwingUtilities.computeStringWidth(g.getFontMetrics(), message);
+            int messageWidth = getStringWidth(fontMetrics, message);
             int labelX = isRightFacing ? interactionFromXPosition + MESSAGE_PADDING : interactionFromXPosition - (messageWidth + MESSAGE_PADDING);
-            g.drawString(message, labelX, interactionFromYPosition - MESSAGE_PADDING);
-        });
+            return new TextRun(fontMetrics.getFont(), message, labelX, interactionFromYPosition - MESSAGE_PADDING, messageWidth, fontMetrics);
+        }).orElse(null);
     }
 
 }
@@ -1,8 +1,8 @@
 package org.brokn.sequence.rendering.interaction;
 
 import org.brokn.sequence.model.Interaction;
-import org.brokn.sequence.rendering.interaction.arrowhead.RenderableArrowhead;
 import org.brokn.sequence.rendering.interaction.arrowhead.RenderableArrowheadFactory;
+import org.brokn.sequence.rendering.layout.InteractionLayout;
 import org.brokn.sequence.rendering.utils.LayoutUtils;
 
 import java.awt.*;
@@ -17,9 +17,7 @@ public class RenderablePointToPointInteraction extends RenderableInteraction {
     }
 
     @Override
-    public void draw(Graphics g, int verticalOffset) {
-        super.draw(g, verticalOffset);
-
+    public InteractionLayout layout(FontMetrics fontMetrics, int verticalOffset) {
         int fromLaneXPosition = LayoutUtils.getLaneXPosition(this.interaction.getFromLane());
         int toLaneXPosition = LayoutUtils.getLaneXPosition(this.interaction.getToLane());
 
@@ -28,14 +26,10 @@ public class RenderablePointToPointInteraction extends RenderableInteraction {
 
         int lineY = verticalOffset + CANVAS_VERTICAL_GAP + (this.interaction.getIndex() * CANVAS_VERTICAL_GAP);
 
-        // Render line
-        g.drawLine(lineFromX, lineY, lineToX, lineY);
-
-        // Render message
-        renderInteractionMessage(g, lineFromX, lineY, lineToX);
-
-        // Render Arrowhead
-        RenderableArrowheadFactory.create(interaction).draw(g, lineToX, lineY);
+        return new InteractionLayout(this.interaction,
+                new int[]{lineFromX, lineY, lineToX, lineY},
+                layoutMessage(fontMetrics, lineFromX, lineY, lineToX),
+                RenderableArrowheadFactory.create(interaction).layout(lineToX, lineY));
     }
 
 }
@@ -1,8 +1,8 @@
 package org.brokn.sequence.rendering.interaction;
 
 import org.brokn.sequence.model.Interaction;
-import org.brokn.sequence.rendering.interaction.arrowhead.RenderableArrowhead;
 import org.brokn.sequence.rendering.interaction.arrowhead.RenderableArrowheadFactory;
+import org.brokn.sequence.rendering.layout.InteractionLayout;
 import org.brokn.sequence.rendering.utils.LayoutUtils;
 
 import java.awt.*;
@@ -17,29 +17,21 @@ public class RenderableSelfReferentialInteraction extends RenderableInteraction
     }
 
     @Override
-    public void draw(Graphics g, int verticalOffset) {
-        super.draw(g, verticalOffset);
-
+    public InteractionLayout layout(FontMetrics fontMetrics, int verticalOffset) {
         int fromLineX = LayoutUtils.getLaneXPosition(this.interaction.getFromLane()) + (LANE_WIDTH / 2);
         int lineToX = fromLineX + (LANE_WIDTH / 2) + (LANE_GAP / 2);
 
         int fromLineY = verticalOffset + CANVAS_VERTICAL_GAP + (this.interaction.getIndex() * CANVAS_VERTICAL_GAP);
         int toLineY = fromLineY + CANVAS_VERTICAL_GAP;
 
-        // render line
-        g.drawLine(fromLineX, fromLineY, lineToX, fromLineY);
-
-        // vertical line
-        g.drawLine(lineToX, fromLineY, lineToX, toLineY);
-
-        // second line
-        g.drawLine(fromLineX, toLineY, lineToX, toLineY);
-
-        // Render message
-        renderInteractionMessage(g, fromLineX, fromLineY, lineToX);
-
-        // Render Arrowhead
-        RenderableArrowheadFactory.create(interaction).draw(g, fromLineX, toLineY);
+        // out, down and back again
+        return new InteractionLayout(this.interaction,
+                new int[]{
+                        fromLineX, fromLineY, lineToX, fromLineY,
+                        lineToX, fromLineY, lineToX, toLineY,
+                        fromLineX, toLineY, lineToX, toLineY},
+                layoutMessage(fontMetrics, fromLineX, fromLineY, lineToX),
+                RenderableArrowheadFactory.create(interaction).layout(fromLineX, toLineY));
     }
 
 }
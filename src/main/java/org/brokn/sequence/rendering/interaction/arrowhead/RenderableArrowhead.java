@@ -18,8 +18,7 @@
 package org.brokn.sequence.rendering.interaction.arrowhead;
 
 import org.brokn.sequence.model.Interaction;
-
-import java.awt.*;
+import org.brokn.sequence.rendering.layout.ArrowheadLayout;
 
 public abstract class RenderableArrowhead {
 
@@ -29,6 +28,9 @@ public abstract class RenderableArrowhead {
         this.interaction = interaction;
     }
 
-    public abstract void draw(Graphics g, int lineEndX, int lineEndY);
+    /**
+     * Lay out the arrowhead with its tip at the end of the line.
+     */
+    public abstract ArrowheadLayout layout(int lineEndX, int lineEndY);
 
 }
\ No newline at end of file
@@ -1,8 +1,7 @@
 package org.brokn.sequence.rendering.interaction.arrowhead;
 
 import org.brokn.sequence.model.Interaction;
-
-import java.awt.*;
+import org.brokn.sequence.rendering.layout.ArrowheadLayout;
 
 import static org.brokn.sequence.rendering.utils.LayoutHelper.ARROWHEAD_LENGTH;
 
@@ -13,20 +12,16 @@ public class RenderableAsyncArrowhead extends RenderableArrowhead {
     }
 
     @Override
-    public void draw(Graphics g, int lineEndX, int lineEndY) {
+    public ArrowheadLayout layout(int lineEndX, int lineEndY) {
         int fromLaneIndex = interaction.getFromLane().getIndex();
         int toLaneIndex = interaction.getToLane().getIndex();
         boolean isPointingRight = fromLaneIndex < toLaneIndex;
-        if (isPointingRight) {
-            // draw >
-            g.drawLine(lineEndX - ARROWHEAD_LENGTH, lineEndY - ARROWHEAD_LENGTH, lineEndX, lineEndY);
-            g.drawLine(lineEndX - ARROWHEAD_LENGTH, lineEndY + ARROWHEAD_LENGTH, lineEndX, lineEndY);
 
-        } else {
-            // draw <
-            g.drawLine(lineEndX + ARROWHEAD_LENGTH, lineEndY - ARROWHEAD_LENGTH, lineEndX, lineEndY);
-            g.drawLine(lineEndX + ARROWHEAD_LENGTH, lineEndY + ARROWHEAD_LENGTH, lineEndX, lineEndY);
-        }
+        // > or <, the tip in the middle
+        int backX = isPointingRight ? lineEndX - ARROWHEAD_LENGTH : lineEndX + ARROWHEAD_LENGTH;
+        return new ArrowheadLayout(false,
+                new int[]{backX, lineEndX, backX},
+                new int[]{lineEndY - ARROWHEAD_LENGTH, lineEndY, lineEndY + ARROWHEAD_LENGTH});
     }
 
 }
@@ -1,8 +1,7 @@
 package org.brokn.sequence.rendering.interaction.arrowhead;
 
 import org.brokn.sequence.model.Interaction;
-
-import java.awt.*;
+import org.brokn.sequence.rendering.layout.ArrowheadLayout;
 
 import static org.brokn.sequence.rendering.utils.LayoutHelper.ARROWHEAD_LENGTH;
 
@@ -13,22 +12,16 @@ public class RenderableSyncArrowhead extends RenderableArrowhead {
     }
 
     @Override
-    public void draw(Graphics g, int lineEndX, int lineEndY) {
+    public ArrowheadLayout layout(int lineEndX, int lineEndY) {
         int fromLaneIndex = interaction.getFromLane().getIndex();
         int toLaneIndex = interaction.getToLane().getIndex();
         boolean isPointingRight = fromLaneIndex < toLaneIndex;
-        if (isPointingRight) {
-            // draw >
-            g.fillPolygon(
-                    new int[]{lineEndX - ARROWHEAD_LENGTH, lineEndX, lineEndX - ARROWHEAD_LENGTH},
-                    new int[]{lineEndY - ARROWHEAD_LENGTH, lineEndY, lineEndY + ARROWHEAD_LENGTH}, 3);
-
-        } else {
-            // draw <
-            g.fillPolygon(
-                    new int[]{lineEndX + ARROWHEAD_LENGTH, lineEndX, lineEndX + ARROWHEAD_LENGTH},
-                    new int[]{lineEndY - ARROWHEAD_LENGTH, lineEndY, lineEndY + ARROWHEAD_LENGTH}, 3);
-        }
 
+        // > or <, the tip in the middle
+        int backX = isPointingRight ? lineEndX - ARROWHEAD_LENGTH : lineEndX + ARROWHEAD_LENGTH;
+        return new ArrowheadLayout(true,
+                new int[]{backX, lineEndX, backX},
+                new int[]{lineEndY - ARROWHEAD_LENGTH, lineEndY, lineEndY + ARROWHEAD_LENGTH});
     }
+
 }
@@ -20,44 +20,52 @@ package org.brokn.sequence.rendering.lane;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
 import org.brokn.sequence.model.Lane;
+import org.brokn.sequence.rendering.layout.LaneLayout;
+import org.brokn.sequence.rendering.layout.TextRun;
 import org.brokn.sequence.rendering.utils.LayoutHelper;
 import org.brokn.sequence.rendering.utils.LayoutUtils;
+import org.brokn.sequence.rendering.utils.TextMetrics;
 
-import javax.swing.*;
 import java.awt.*;
+import java.awt.font.FontRenderContext;
 
-import static javax.swing.SwingUtilities.computeStringWidth;
 import static org.brokn.sequence.rendering.utils.LayoutHelper.*;
-import static org.brokn.sequence.rendering.utils.LayoutUtils.drawStringWithFont;
+import static org.brokn.sequence.rendering.utils.LayoutUtils.getStringWidth;
 
 public class RenderableLane {
 
     private final Lane lane;
 
+    // the font the lane name was last fitted with, replaced as a whole so that it can be read by any thread
+    private FittedFont fittedFont;
+
     public RenderableLane(final Lane lane) {
         this.lane = lane;
     }
 
-    public void draw(Graphics g, int headerOffset, int totalInteractions) {
+    /**
+     * Lay out the lane's name in its box below the header, and its vertical line down past the last interaction.
+     */
+    public LaneLayout layout(Graphics g, int headerOffset, int totalInteractions) {
         // X position of the lane
         int laneXPosition = LayoutUtils.getLaneXPosition(this.lane);
 
-        // draw lane name
+        // lane name
         Font titleFont = getSizeAdjustedFont(g, this.lane.getName());
-        int textWidth = computeStringWidth(g.getFontMetrics(titleFont), this.lane.getName());
+        int textWidth = getStringWidth(g, titleFont, this.lane.getName());
         int textXPosition = (laneXPosition + LANE_WIDTH / 2) - (textWidth / 2);
         int textYPosition = headerOffset + LANE_BOX_PADDING;
-        drawStringWithFont(g, titleFont, textXPosition, textYPosition, this.lane.getName());
+        TextRun name = new TextRun(titleFont, this.lane.getName(), textXPosition, textYPosition, textWidth, g.getFontMetrics(titleFont));
 
-        // draw box
+        // box
         int boxWidth = Math.min(textWidth, LANE_WIDTH) + (LANE_BOX_PADDING * 2);
         int boxXPosition = laneXPosition + (LANE_WIDTH / 2) - (Math.min(textWidth, LANE_WIDTH) / 2) - LANE_BOX_PADDING;
-        g.drawRoundRect(boxXPosition, headerOffset, boxWidth, LANE_BOX_HEIGHT, 10, 10);
+        Rectangle box = new Rectangle(boxXPosition, headerOffset, boxWidth, LANE_BOX_HEIGHT);
 
-        // draw vertical line
+        // vertical line
         int y1 = headerOffset + LANE_BOX_HEIGHT;
         int y2 = headerOffset + (totalInteractions * LayoutHelper.CANVAS_VERTICAL_GAP) + getVerticalLinePadding();
-        g.drawLine((laneXPosition + LANE_WIDTH / 2), y1, (laneXPosition + LANE_WIDTH / 2), y2);
+        return new LaneLayout(this.lane, name, box, laneXPosition + LANE_WIDTH / 2, y1, y2);
     }
 
     /**
@@ -68,15 +76,25 @@ public class RenderableLane {
      * @return
      */
     public Font getSizeAdjustedFont(Graphics g, String text) {
+        // the search tries a font for every tenth of a point, so the last result is kept for the next draw
         Font originalFont = g.getFont();
+        FontRenderContext fontRenderContext = ((Graphics2D) g).getFontRenderContext();
+        FittedFont fittedFont = this.fittedFont;
+        if (fittedFont != null && fittedFont.isFor(originalFont, fontRenderContext, text)) {
+            return fittedFont.font;
+        }
+
+        Font adjustedFont = originalFont;
         for (float size = originalFont.getSize(); size > 0; size -= 0.1) {
-            Font tryFont = originalFont.deriveFont(Font.BOLD, size);
-            int width = SwingUtilities.computeStringWidth(g.getFontMetrics(tryFont), text);
+            Font tryFont = TextMetrics.shared().deriveFont(originalFont, Font.BOLD, size);
+            int width = getStringWidth(g, tryFont, text);
             if (width < LANE_WIDTH) {
-                return tryFont;
+                adjustedFont = tryFont;
+                break;
             }
         }
-        return originalFont;
+        this.fittedFont = new FittedFont(originalFont, fontRenderContext, text, adjustedFont);
+        return adjustedFont;
     }
 
     public static int getVerticalLinePadding() {
@@ -102,4 +120,23 @@ public class RenderableLane {
                 .add("lane", lane)
                 .toString();
     }
+
+    private static final class FittedFont {
+
+        private final Font originalFont;
+        private final FontRenderContext fontRenderContext;
+        private final String text;
+        private final Font font;
+
+        FittedFont(Font originalFont, FontRenderContext fontRenderContext, String text, Font font) {
+            this.originalFont = originalFont;
+            this.fontRenderContext = fontRenderContext;
+            this.text = text;
+            this.font = font;
+        }
+
+        boolean isFor(Font originalFont, FontRenderContext fontRenderContext, String text) {
+            return this.originalFont.equals(originalFont) && this.fontRenderContext.equals(fontRenderContext) && this.text.equals(text);
+        }
+    }
 }
\ No newline at end of file
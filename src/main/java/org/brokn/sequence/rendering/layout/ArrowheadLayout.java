@@ -0,0 +1,77 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.rendering.layout;
+
+import com.google.common.base.MoreObjects;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * The three points of an arrowhead, the middle one its tip; filled for a synchronous interaction, drawn as two lines
+ * for an asynchronous one.
+ */
+public final class ArrowheadLayout {
+
+    private final boolean filled;
+    private final int[] xPoints;
+    private final int[] yPoints;
+
+    public ArrowheadLayout(boolean filled, int[] xPoints, int[] yPoints) {
+        this.filled = filled;
+        this.xPoints = xPoints.clone();
+        this.yPoints = yPoints.clone();
+    }
+
+    public boolean isFilled() {
+        return filled;
+    }
+
+    public Rectangle getBounds() {
+        return new Polygon(xPoints, yPoints, 3).getBounds();
+    }
+
+    public void paint(Graphics g) {
+        if (filled) {
+            g.fillPolygon(xPoints, yPoints, 3);
+        } else {
+            g.drawLine(xPoints[0], yPoints[0], xPoints[1], yPoints[1]);
+            g.drawLine(xPoints[2], yPoints[2], xPoints[1], yPoints[1]);
+        }
+    }
+
+    void record(DisplayList.Builder out) {
+        if (filled) {
+            out.fillPolygon(xPoints, yPoints);
+        } else {
+            out.line(xPoints[0], yPoints[0], xPoints[1], yPoints[1]);
+            out.line(xPoints[2], yPoints[2], xPoints[1], yPoints[1]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("filled", filled)
+                .add("xPoints", Arrays.toString(xPoints))
+                .add("yPoints", Arrays.toString(yPoints))
+                .toString();
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.rendering.layout;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+
+import static org.brokn.sequence.rendering.utils.LayoutHelper.CANVAS_VERTICAL_GAP;
+
+/**
+ * The laid out diagram: every box, line, arrowhead and run of text, with absolute coordinates, for the font and font
+ * render context it was measured with. Painting, export, hit-testing and sizing all read from it, so the geometry is
+ * computed once per model and font rather than on every paint.
+ * <p>
+ * Interactions are found by their index, as each one's row is at a fixed offset from the header. The interaction
+ * layouts of a compact diagram are computed as they are read, rather than held for every interaction.
+ */
+public final class DiagramLayout {
+
+    private final Font font;
+    private final FontRenderContext fontRenderContext;
+    private final Dimension size;
+    private final int headerHeight;
+    private final List<TextRun> header;
+    private final List<LaneLayout> lanes;
+    private final List<InteractionLayout> interactions;
+
+    // the index of the interaction at each position, and whether they're in order so that a band can be searched for
+    private final IntUnaryOperator interactionIndex;
+    private final boolean indexesAscending;
+
+    // how far an interaction can extend above its line, for its message, and below it, for a self-reference
+    private final int extentAbove;
+    private final int extentBelow;
+
+    public DiagramLayout(Font font, FontRenderContext fontRenderContext, Dimension size, int headerHeight, List<TextRun> header,
+                         List<LaneLayout> lanes, List<InteractionLayout> interactions, IntUnaryOperator interactionIndex,
+                         boolean indexesAscending, int extentAbove, int extentBelow) {
+        this.font = font;
+        this.fontRenderContext = fontRenderContext;
+        this.size = new Dimension(size);
+        this.headerHeight = headerHeight;
+        this.header = ImmutableList.copyOf(header);
+        this.lanes = ImmutableList.copyOf(lanes);
+        this.interactions = interactions;
+        this.interactionIndex = interactionIndex;
+        this.indexesAscending = indexesAscending;
+        this.extentAbove = extentAbove;
+        this.extentBelow = extentBelow;
+    }
+
+    /**
+     * Whether this is the layout for the given font and render context, i.e. it can be painted by a graphics using them.
+     */
+    public boolean isFor(Font font, FontRenderContext fontRenderContext) {
+        return this.font.equals(font) && this.fontRenderContext.equals(fontRenderContext);
+    }
+
+    public Dimension getSize() {
+        return new Dimension(size);
+    }
+
+    public int getHeaderHeight() {
+        return headerHeight;
+    }
+
+    public List<TextRun> getHeader() {
+        return header;
+    }
+
+    public List<LaneLayout> getLanes() {
+        return lanes;
+    }
+
+    public List<InteractionLayout> getInteractions() {
+        return interactions;
+    }
+
+    /**
+     * Paint the diagram, or only the part of it within the clip. The graphics' stroke is put back afterwards.
+     */
+    public void paint(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip != null) {
+            this.paint(g, clip.y, clip.y + clip.height);
+            return;
+        }
+
+        // the interactions set their own strokes, which mustn't carry over to the lanes of a later paint
+        Stroke originalStroke = ((Graphics2D) g).getStroke();
+        try {
+            this.header.forEach(run -> run.paint(g));
+            this.lanes.forEach(lane -> lane.paint(g));
+            this.interactions.forEach(interaction -> interaction.paint(g));
+        } finally {
+            ((Graphics2D) g).setStroke(originalStroke);
+        }
+    }
+
+    /**
+     * Paint only what falls within the rows [top, bottom): the header if it's in view, the lane lines cut to the rows,
+     * and the interactions which overlap them. The graphics' stroke is put back afterwards.
+     */
+    public void paint(Graphics g, int top, int bottom) {
+        Stroke originalStroke = ((Graphics2D) g).getStroke();
+        try {
+            if (top < this.headerHeight) {
+                this.header.forEach(run -> run.paint(g));
+            }
+            this.lanes.forEach(lane -> lane.paint(g, top, bottom));
+            this.forEachInteractionIn(top, bottom, interaction -> interaction.paint(g));
+        } finally {
+            ((Graphics2D) g).setStroke(originalStroke);
+        }
+    }
+
+    /**
+     * Record the diagram as a display list, which replays it as {@link #paint(Graphics)} would paint it.
+     * The interaction layouts of a compact diagram are all computed to record them.
+     */
+    public DisplayList record() {
+        DisplayList.Builder builder = new DisplayList.Builder();
+        this.header.forEach(run -> run.record(builder));
+        builder.endSegment(Integer.MIN_VALUE, this.headerHeight);
+        this.lanes.forEach(lane -> lane.record(builder));
+        for (InteractionLayout interaction : this.interactions) {
+            interaction.record(builder);
+            builder.endInteraction();
+        }
+        return builder.build(this);
+    }
+
+    /**
+     * The interaction drawn at the point, if any; its line, arrowhead or message.
+     */
+    public Optional<InteractionLayout> interactionAt(int x, int y) {
+        InteractionLayout[] hit = new InteractionLayout[1];
+        this.forEachInteractionIn(y, y + 1, interaction -> {
+            if (hit[0] == null && interaction.contains(x, y)) {
+                hit[0] = interaction;
+            }
+        });
+        return Optional.ofNullable(hit[0]);
+    }
+
+    /**
+     * The lane drawn at the point, if any; its name and box, or near its vertical line.
+     */
+    public Optional<LaneLayout> laneAt(int x, int y) {
+        return this.lanes.stream().filter(lane -> lane.contains(x, y)).findFirst();
+    }
+
+    private void forEachInteractionIn(int top, int bottom, Consumer<InteractionLayout> action) {
+        this.forEachPositionIn(top, bottom, position -> action.accept(this.interactions.get(position)));
+    }
+
+    // the positions of the interactions which may be drawn within the rows [top, bottom)
+    void forEachPositionIn(int top, int bottom, IntConsumer action) {
+        int firstIndex = Math.floorDiv(top - this.extentBelow - this.headerHeight, CANVAS_VERTICAL_GAP) - 1;
+        int lastIndex = Math.floorDiv(bottom + this.extentAbove - this.headerHeight, CANVAS_VERTICAL_GAP);
+
+        // when the interactions are in index order the band is found by binary search, so it costs the interactions
+        // in it rather than all of them
+        int size = this.interactions.size();
+        for (int position = this.indexesAscending ? firstPosition(firstIndex, size) : 0; position < size; position++) {
+            int index = this.interactionIndex.applyAsInt(position);
+            if (index > lastIndex && this.indexesAscending) {
+                break;
+            }
+            if (index >= firstIndex && index <= lastIndex) {
+                action.accept(position);
+            }
+        }
+    }
+
+    // the first position whose interaction index is at least the given index
+    private int firstPosition(int index, int size) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.interactionIndex.applyAsInt(mid) < index) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("font", font)
+                .add("size", size)
+                .add("lanes", lanes.size())
+                .add("interactions", interactions.size())
+                .toString();
+    }
+
+}
@@ -0,0 +1,339 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.rendering.layout;
+
+import com.google.common.base.MoreObjects;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A diagram recorded as a flat list of drawing operations, so that it can be replayed onto any graphics; the screen,
+ * an image for export or the clipboard, or a vector writer, without walking the layout objects again.
+ * <p>
+ * The operations are held in one int array, each an op code followed by its arguments, with the fonts, strokes and
+ * strings they refer to held once each in a table of constants. The header and lanes are recorded as segments, which
+ * are replayed when they're in view, and each interaction is recorded on its own, so that a band of rows replays
+ * only the interactions within it.
+ */
+public final class DisplayList {
+
+    // x1, y1, x2, y2
+    static final int LINE = 0;
+    // x, top, bottom; cut to the rows being replayed
+    static final int VERTICAL_LINE = 1;
+    // x, y, width, height, arc width, arc height
+    static final int ROUND_RECT = 2;
+    // n, n x points, n y points
+    static final int FILL_POLYGON = 3;
+    // font, string, x, y; the font only set when it changes
+    static final int TEXT = 4;
+    // stroke
+    static final int STROKE = 5;
+
+    private final DiagramLayout layout;
+
+    private final int[] ops;
+    private final Object[] constants;
+
+    // start, end, top and bottom of each segment, which is replayed when [top, bottom) overlaps the rows
+    private final int[] segments;
+
+    // where each interaction's ops start, by position, and where the last one's end
+    private final int[] interactionStarts;
+
+    private DisplayList(DiagramLayout layout, Builder builder) {
+        this.layout = layout;
+        this.ops = Arrays.copyOf(builder.ops, builder.size);
+        this.constants = builder.constants.toArray();
+        this.segments = Arrays.copyOf(builder.segments, builder.segmentsSize);
+        this.interactionStarts = Arrays.copyOf(builder.interactionStarts, builder.interactionCount + 1);
+    }
+
+    /**
+     * The layout this was recorded from, which is used to find the interactions within a band of rows.
+     */
+    public DiagramLayout getLayout() {
+        return layout;
+    }
+
+    public int getOpsLength() {
+        return ops.length;
+    }
+
+    public int getConstantCount() {
+        return constants.length;
+    }
+
+    /**
+     * Replay the diagram, or only the part of it within the clip.
+     */
+    public void replay(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip != null) {
+            this.replay(g, clip.y, clip.y + clip.height);
+            return;
+        }
+
+        // one inside the extremes, so that the lines are drawn whole
+        Player player = new Player((Graphics2D) g, Integer.MIN_VALUE + 1, Integer.MAX_VALUE - 1);
+        try {
+            player.play(0, ops.length);
+        } finally {
+            player.restore();
+        }
+    }
+
+    /**
+     * Replay only what falls within the rows [top, bottom), as {@link DiagramLayout#paint(Graphics, int, int)} paints it.
+     * The graphics' font and stroke are put back afterwards.
+     */
+    public void replay(Graphics g, int top, int bottom) {
+        Player player = new Player((Graphics2D) g, top, bottom);
+        try {
+            for (int i = 0; i < segments.length; i += 4) {
+                if (segments[i + 2] < bottom && segments[i + 3] > top) {
+                    player.play(segments[i], segments[i + 1]);
+                }
+            }
+            this.layout.forEachPositionIn(top, bottom, position -> player.play(interactionStarts[position], interactionStarts[position + 1]));
+        } finally {
+            player.restore();
+        }
+    }
+
+    /**
+     * Replays ops onto a graphics, keeping track of the font so that it's only set when it changes.
+     */
+    private final class Player {
+
+        private final Graphics2D g;
+        private final int top;
+        private final int bottom;
+        private final Font originalFont;
+        private final Stroke originalStroke;
+        private Font font;
+        private int[] xPoints = new int[3];
+        private int[] yPoints = new int[3];
+
+        Player(Graphics2D g, int top, int bottom) {
+            this.g = g;
+            this.top = top;
+            this.bottom = bottom;
+            this.originalFont = g.getFont();
+            this.originalStroke = g.getStroke();
+            this.font = originalFont;
+        }
+
+        void play(int start, int end) {
+            int i = start;
+            while (i < end) {
+                switch (ops[i]) {
+                    case LINE -> {
+                        g.drawLine(ops[i + 1], ops[i + 2], ops[i + 3], ops[i + 4]);
+                        i += 5;
+                    }
+                    case VERTICAL_LINE -> {
+                        // cut to just outside the rows, so that its ends are drawn outside of them
+                        int y1 = Math.max(ops[i + 2], top - 1);
+                        int y2 = Math.min(ops[i + 3], bottom + 1);
+                        if (y1 <= y2) {
+                            g.drawLine(ops[i + 1], y1, ops[i + 1], y2);
+                        }
+                        i += 4;
+                    }
+                    case ROUND_RECT -> {
+                        g.drawRoundRect(ops[i + 1], ops[i + 2], ops[i + 3], ops[i + 4], ops[i + 5], ops[i + 6]);
+                        i += 7;
+                    }
+                    case FILL_POLYGON -> {
+                        int n = ops[i + 1];
+                        if (xPoints.length < n) {
+                            xPoints = new int[n];
+                            yPoints = new int[n];
+                        }
+                        System.arraycopy(ops, i + 2, xPoints, 0, n);
+                        System.arraycopy(ops, i + 2 + n, yPoints, 0, n);
+                        g.fillPolygon(xPoints, yPoints, n);
+                        i += 2 + 2 * n;
+                    }
+                    case TEXT -> {
+                        Font textFont = (Font) constants[ops[i + 1]];
+                        if (!textFont.equals(font)) {
+                            g.setFont(textFont);
+                            font = textFont;
+                        }
+                        g.drawString((String) constants[ops[i + 2]], ops[i + 3], ops[i + 4]);
+                        i += 5;
+                    }
+                    case STROKE -> {
+                        g.setStroke((Stroke) constants[ops[i + 1]]);
+                        i += 2;
+                    }
+                    default -> throw new IllegalStateException("Unknown op [" + ops[i] + "] at [" + i + "]");
+                }
+            }
+        }
+
+        void restore() {
+            if (font != originalFont) {
+                g.setFont(originalFont);
+            }
+            g.setStroke(originalStroke);
+        }
+
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("ops", ops.length)
+                .add("constants", constants.length)
+                .add("segments", segments.length / 4)
+                .add("interactions", interactionStarts.length - 1)
+                .toString();
+    }
+
+    /**
+     * Records the ops of the layout objects, in the order they're painted; first the segments, then the interactions.
+     */
+    static final class Builder {
+
+        private int[] ops = new int[1024];
+        private int size;
+
+        private final List<Object> constants = new ArrayList<>();
+        private final Map<Object, Integer> constantIds = new HashMap<>();
+
+        private int[] segments = new int[64];
+        private int segmentsSize;
+
+        private int[] interactionStarts = new int[64];
+        private int interactionCount;
+
+        // where the segment or interaction being recorded started
+        private int mark;
+
+        void line(int x1, int y1, int x2, int y2) {
+            ensureCapacity(5);
+            ops[size++] = LINE;
+            ops[size++] = x1;
+            ops[size++] = y1;
+            ops[size++] = x2;
+            ops[size++] = y2;
+        }
+
+        void verticalLine(int x, int top, int bottom) {
+            ensureCapacity(4);
+            ops[size++] = VERTICAL_LINE;
+            ops[size++] = x;
+            ops[size++] = top;
+            ops[size++] = bottom;
+        }
+
+        void roundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+            ensureCapacity(7);
+            ops[size++] = ROUND_RECT;
+            ops[size++] = x;
+            ops[size++] = y;
+            ops[size++] = width;
+            ops[size++] = height;
+            ops[size++] = arcWidth;
+            ops[size++] = arcHeight;
+        }
+
+        void fillPolygon(int[] xPoints, int[] yPoints) {
+            int n = xPoints.length;
+            ensureCapacity(2 + 2 * n);
+            ops[size++] = FILL_POLYGON;
+            ops[size++] = n;
+            System.arraycopy(xPoints, 0, ops, size, n);
+            System.arraycopy(yPoints, 0, ops, size + n, n);
+            size += 2 * n;
+        }
+
+        void text(Font font, String text, int x, int y) {
+            ensureCapacity(5);
+            ops[size++] = TEXT;
+            ops[size++] = constant(font);
+            ops[size++] = constant(text);
+            ops[size++] = x;
+            ops[size++] = y;
+        }
+
+        void stroke(Stroke stroke) {
+            ensureCapacity(2);
+            ops[size++] = STROKE;
+            ops[size++] = constant(stroke);
+        }
+
+        /**
+         * End a segment with the ops recorded since the last one, replayed when [top, bottom) overlaps the rows.
+         */
+        void endSegment(int top, int bottom) {
+            if (segmentsSize + 4 > segments.length) {
+                segments = Arrays.copyOf(segments, segments.length * 2);
+            }
+            segments[segmentsSize++] = mark;
+            segments[segmentsSize++] = size;
+            segments[segmentsSize++] = top;
+            segments[segmentsSize++] = bottom;
+            mark = size;
+        }
+
+        /**
+         * End the next interaction, by position, with the ops recorded since the last segment or interaction.
+         */
+        void endInteraction() {
+            if (interactionCount + 2 > interactionStarts.length) {
+                interactionStarts = Arrays.copyOf(interactionStarts, interactionStarts.length * 2);
+            }
+            interactionStarts[interactionCount++] = mark;
+            interactionStarts[interactionCount] = size;
+            mark = size;
+        }
+
+        DisplayList build(DiagramLayout layout) {
+            if (interactionCount == 0) {
+                interactionStarts[0] = size;
+            }
+            return new DisplayList(layout, this);
+        }
+
+        // fonts, strokes and strings are each held once, however many ops refer to them
+        private int constant(Object value) {
+            return constantIds.computeIfAbsent(value, key -> {
+                constants.add(key);
+                return constants.size() - 1;
+            });
+        }
+
+        private void ensureCapacity(int length) {
+            if (size + length > ops.length) {
+                ops = Arrays.copyOf(ops, Math.max(ops.length * 2, size + length));
+            }
+        }
+
+    }
+
+}
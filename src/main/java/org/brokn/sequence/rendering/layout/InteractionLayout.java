@@ -0,0 +1,122 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.rendering.layout;
+
+import com.google.common.base.MoreObjects;
+import org.brokn.sequence.model.Interaction;
+
+import javax.annotation.Nullable;
+import java.awt.*;
+import java.util.Optional;
+
+/**
+ * The lines of an interaction, each as its two end points, with its message and arrowhead.
+ */
+public final class InteractionLayout {
+
+    private static final Stroke SOLID_STROKE = new BasicStroke();
+
+    private static final Stroke DASHED_STROKE = new BasicStroke(1, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0, new float[]{5}, 0);
+
+    private final Interaction interaction;
+
+    // x1, y1, x2, y2 of each line, in the order and direction drawn, as the dashes start from the first point
+    private final int[] lines;
+
+    private final @Nullable TextRun message;
+
+    private final ArrowheadLayout arrowhead;
+
+    private final Rectangle bounds;
+
+    public InteractionLayout(Interaction interaction, int[] lines, @Nullable TextRun message, ArrowheadLayout arrowhead) {
+        this.interaction = interaction;
+        this.lines = lines.clone();
+        this.message = message;
+        this.arrowhead = arrowhead;
+
+        Rectangle bounds = arrowhead.getBounds();
+        for (int i = 0; i < lines.length; i += 4) {
+            bounds.add(lines[i], lines[i + 1]);
+            bounds.add(lines[i + 2], lines[i + 3]);
+        }
+        if (message != null) {
+            bounds.add(message.getBounds());
+        }
+        this.bounds = bounds;
+    }
+
+    public Interaction getInteraction() {
+        return interaction;
+    }
+
+    public boolean isDashed() {
+        return interaction.getModifiers().contains(Interaction.Modifiers.REPLY);
+    }
+
+    public Optional<TextRun> getMessage() {
+        return Optional.ofNullable(message);
+    }
+
+    public ArrowheadLayout getArrowhead() {
+        return arrowhead;
+    }
+
+    public Rectangle getBounds() {
+        return new Rectangle(bounds);
+    }
+
+    boolean contains(int x, int y) {
+        return bounds.contains(x, y);
+    }
+
+    public void paint(Graphics g) {
+        // every interaction sets its stroke, so that a reply's dashes don't carry over to the interactions after it
+        ((Graphics2D) g).setStroke(isDashed() ? DASHED_STROKE : SOLID_STROKE);
+
+        for (int i = 0; i < lines.length; i += 4) {
+            g.drawLine(lines[i], lines[i + 1], lines[i + 2], lines[i + 3]);
+        }
+        if (message != null) {
+            message.paint(g);
+        }
+        arrowhead.paint(g);
+    }
+
+    void record(DisplayList.Builder out) {
+        out.stroke(isDashed() ? DASHED_STROKE : SOLID_STROKE);
+
+        for (int i = 0; i < lines.length; i += 4) {
+            out.line(lines[i], lines[i + 1], lines[i + 2], lines[i + 3]);
+        }
+        if (message != null) {
+            message.record(out);
+        }
+        arrowhead.record(out);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("interaction", interaction)
+                .add("bounds", bounds)
+                .toString();
+    }
+
+}
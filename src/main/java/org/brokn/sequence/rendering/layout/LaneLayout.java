@@ -0,0 +1,127 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.rendering.layout;
+
+import com.google.common.base.MoreObjects;
+import org.brokn.sequence.model.Lane;
+
+import java.awt.*;
+
+/**
+ * A lane's name in its box, and its vertical line down the diagram.
+ */
+public final class LaneLayout {
+
+    // the corners of the box are rounded by this much
+    private static final int BOX_ARC = 10;
+
+    // how far either side of the line still hits it
+    private static final int LINE_HIT_TOLERANCE = 3;
+
+    private final Lane lane;
+    private final TextRun name;
+    private final Rectangle box;
+    private final int lineX;
+    private final int lineTop;
+    private final int lineBottom;
+
+    // the name and box together, as the name may be taller than the box
+    private final Rectangle headBounds;
+
+    public LaneLayout(Lane lane, TextRun name, Rectangle box, int lineX, int lineTop, int lineBottom) {
+        this.lane = lane;
+        this.name = name;
+        this.box = new Rectangle(box);
+        this.lineX = lineX;
+        this.lineTop = lineTop;
+        this.lineBottom = lineBottom;
+        // a pixel either way for antialiasing
+        this.headBounds = name.getBounds().union(new Rectangle(box.x, box.y, box.width + 1, box.height + 1));
+        this.headBounds.grow(1, 1);
+    }
+
+    public Lane getLane() {
+        return lane;
+    }
+
+    public TextRun getName() {
+        return name;
+    }
+
+    public Rectangle getBox() {
+        return new Rectangle(box);
+    }
+
+    public Rectangle getBounds() {
+        Rectangle bounds = new Rectangle(headBounds);
+        bounds.add(lineX, lineBottom);
+        return bounds;
+    }
+
+    boolean contains(int x, int y) {
+        return headBounds.contains(x, y) || (Math.abs(x - lineX) <= LINE_HIT_TOLERANCE && y >= lineTop && y <= lineBottom);
+    }
+
+    public void paint(Graphics g) {
+        paintHead(g);
+        g.drawLine(lineX, lineTop, lineX, lineBottom);
+    }
+
+    /**
+     * Paint only what falls within the rows [top, bottom): the name and box when they're in view, and the vertical
+     * line cut to just outside the rows, so that its ends are drawn outside of them.
+     */
+    public void paint(Graphics g, int top, int bottom) {
+        if (headBounds.y < bottom && headBounds.y + headBounds.height >= top) {
+            paintHead(g);
+        }
+
+        int y1 = Math.max(lineTop, top - 1);
+        int y2 = Math.min(lineBottom, bottom + 1);
+        if (y1 <= y2) {
+            g.drawLine(lineX, y1, lineX, y2);
+        }
+    }
+
+    private void paintHead(Graphics g) {
+        name.paint(g);
+        g.drawRoundRect(box.x, box.y, box.width, box.height, BOX_ARC, BOX_ARC);
+    }
+
+    /**
+     * Record the name and box as a segment of their own, so that they're only replayed when in view, then the line.
+     */
+    void record(DisplayList.Builder out) {
+        name.record(out);
+        out.roundRect(box.x, box.y, box.width, box.height, BOX_ARC, BOX_ARC);
+        out.endSegment(headBounds.y, headBounds.y + headBounds.height + 1);
+
+        out.verticalLine(lineX, lineTop, lineBottom);
+        out.endSegment(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("lane", lane)
+                .add("box", box)
+                .toString();
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.rendering.layout;
+
+import com.google.common.base.MoreObjects;
+
+import java.awt.*;
+
+/**
+ * A run of text in one font, positioned by its baseline, with the bounds it is drawn within.
+ */
+public final class TextRun {
+
+    private final Font font;
+    private final String text;
+    private final int x;
+    private final int y;
+    private final Rectangle bounds;
+
+    public TextRun(Font font, String text, int x, int y, int width, FontMetrics fontMetrics) {
+        this.font = font;
+        this.text = text;
+        this.x = x;
+        this.y = y;
+        this.bounds = new Rectangle(x, y - fontMetrics.getMaxAscent(), width, fontMetrics.getMaxAscent() + fontMetrics.getMaxDescent());
+    }
+
+    public Font getFont() {
+        return font;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public Rectangle getBounds() {
+        return new Rectangle(bounds);
+    }
+
+    boolean intersects(int top, int bottom) {
+        return bounds.y < bottom && bounds.y + bounds.height >= top;
+    }
+
+    public void paint(Graphics g) {
+        Font originalFont = g.getFont();
+        if (originalFont.equals(font)) {
+            g.drawString(text, x, y);
+        } else {
+            g.setFont(font);
+            g.drawString(text, x, y);
+            g.setFont(originalFont);
+        }
+    }
+
+    void record(DisplayList.Builder out) {
+        out.text(font, text, x, y);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("text", text)
+                .add("x", x)
+                .add("y", y)
+                .toString();
+    }
+
+}
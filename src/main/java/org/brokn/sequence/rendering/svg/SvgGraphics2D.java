@@ -0,0 +1,716 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.rendering.svg;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Line2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.text.AttributedCharacterIterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A Graphics2D which writes each primitive as an SVG element to a Writer as it is drawn, so the renderables draw to
+ * SVG unchanged and no raster is ever held.
+ * Font metrics come from a 1x1 off-screen image with the same font and rendering hints, so text is laid out exactly as
+ * it would be for a PNG. The clip is written as a {@code clipPath}, with the elements drawn under it grouped in a
+ * {@code <g clip-path>}; call {@link #closeClip()} once drawing is finished. Composites and images are not supported;
+ * the diagram renderables use neither. Write failures are thrown as {@link UncheckedIOException}.
+ */
+public class SvgGraphics2D extends Graphics2D {
+
+    private final Output output;
+
+    // font metrics and rendering hints are tracked by a scratch graphics, which is never drawn to
+    private final Graphics2D metrics;
+
+    private Color color = Color.BLACK;
+    private Color background = Color.WHITE;
+    private Stroke stroke = new BasicStroke();
+    private AffineTransform transform = new AffineTransform();
+
+    // in device space, as for a raster, so that it is unaffected by later changes to the transform
+    private Shape clip;
+
+    public SvgGraphics2D(Writer writer) {
+        this.output = new Output(writer);
+        this.metrics = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).createGraphics();
+    }
+
+    private SvgGraphics2D(SvgGraphics2D parent) {
+        this.output = parent.output;
+        this.metrics = (Graphics2D) parent.metrics.create();
+        this.color = parent.color;
+        this.background = parent.background;
+        this.stroke = parent.stroke;
+        this.transform = new AffineTransform(parent.transform);
+        this.clip = parent.clip;
+    }
+
+    // -- drawing
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        element("<line x1=\"" + x1 + "\" y1=\"" + y1 + "\" x2=\"" + x2 + "\" y2=\"" + y2 + "\"", false);
+    }
+
+    @Override
+    public void drawRect(int x, int y, int width, int height) {
+        element(rect(x, y, width, height), false);
+    }
+
+    @Override
+    public void fillRect(int x, int y, int width, int height) {
+        element(rect(x, y, width, height), true);
+    }
+
+    @Override
+    public void clearRect(int x, int y, int width, int height) {
+        Color current = color;
+        color = background;
+        fillRect(x, y, width, height);
+        color = current;
+    }
+
+    @Override
+    public void drawRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+        element(rect(x, y, width, height) + " rx=\"" + number(arcWidth / 2.0) + "\" ry=\"" + number(arcHeight / 2.0) + "\"", false);
+    }
+
+    @Override
+    public void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+        element(rect(x, y, width, height) + " rx=\"" + number(arcWidth / 2.0) + "\" ry=\"" + number(arcHeight / 2.0) + "\"", true);
+    }
+
+    @Override
+    public void drawOval(int x, int y, int width, int height) {
+        element(ellipse(x, y, width, height), false);
+    }
+
+    @Override
+    public void fillOval(int x, int y, int width, int height) {
+        element(ellipse(x, y, width, height), true);
+    }
+
+    @Override
+    public void drawArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+        draw(new java.awt.geom.Arc2D.Double(x, y, width, height, startAngle, arcAngle, java.awt.geom.Arc2D.OPEN));
+    }
+
+    @Override
+    public void fillArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+        fill(new java.awt.geom.Arc2D.Double(x, y, width, height, startAngle, arcAngle, java.awt.geom.Arc2D.PIE));
+    }
+
+    @Override
+    public void drawPolyline(int[] xPoints, int[] yPoints, int nPoints) {
+        element("<polyline points=\"" + points(xPoints, yPoints, nPoints) + "\"", false);
+    }
+
+    @Override
+    public void drawPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        element("<polygon points=\"" + points(xPoints, yPoints, nPoints) + "\"", false);
+    }
+
+    @Override
+    public void fillPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        element("<polygon points=\"" + points(xPoints, yPoints, nPoints) + "\"", true);
+    }
+
+    @Override
+    public void draw(Shape shape) {
+        if (shape instanceof Line2D) {
+            Line2D line = (Line2D) shape;
+            element("<line x1=\"" + number(line.getX1()) + "\" y1=\"" + number(line.getY1()) + "\" x2=\"" + number(line.getX2()) + "\" y2=\"" + number(line.getY2()) + "\"", false);
+        } else {
+            element("<path d=\"" + path(shape) + "\"", false);
+        }
+    }
+
+    @Override
+    public void fill(Shape shape) {
+        element("<path d=\"" + path(shape) + "\"", true);
+    }
+
+    @Override
+    public void drawString(String text, int x, int y) {
+        drawString(text, (float) x, (float) y);
+    }
+
+    @Override
+    public void drawString(String text, float x, float y) {
+        if (text.isEmpty()) {
+            return;
+        }
+
+        Font font = getFont();
+        StringBuilder element = new StringBuilder("<text x=\"").append(number(x)).append("\" y=\"").append(number(y))
+                .append("\" font-family=\"").append(escape(fontFamily(font))).append("\" font-size=\"").append(number(font.getSize2D())).append('"');
+        if (font.isBold()) {
+            element.append(" font-weight=\"bold\"");
+        }
+        if (font.isItalic()) {
+            element.append(" font-style=\"italic\"");
+        }
+        element.append(" fill=\"").append(colour(color)).append('"').append(opacity("fill-opacity")).append(transformAttribute())
+                .append(" xml:space=\"preserve\">").append(escape(text)).append("</text>\n");
+        applyClip();
+        write(element);
+    }
+
+    @Override
+    public void drawString(AttributedCharacterIterator iterator, int x, int y) {
+        drawString(iterator, (float) x, (float) y);
+    }
+
+    @Override
+    public void drawString(AttributedCharacterIterator iterator, float x, float y) {
+        StringBuilder text = new StringBuilder();
+        for (char c = iterator.first(); c != AttributedCharacterIterator.DONE; c = iterator.next()) {
+            text.append(c);
+        }
+        drawString(text.toString(), x, y);
+    }
+
+    @Override
+    public void drawGlyphVector(GlyphVector glyphs, float x, float y) {
+        fill(glyphs.getOutline(x, y));
+    }
+
+    // -- images are not supported
+
+    @Override
+    public boolean drawImage(Image img, AffineTransform xform, ImageObserver obs) {
+        throw imagesNotSupported();
+    }
+
+    @Override
+    public void drawImage(BufferedImage img, BufferedImageOp op, int x, int y) {
+        throw imagesNotSupported();
+    }
+
+    @Override
+    public void drawRenderedImage(RenderedImage img, AffineTransform xform) {
+        throw imagesNotSupported();
+    }
+
+    @Override
+    public void drawRenderableImage(RenderableImage img, AffineTransform xform) {
+        throw imagesNotSupported();
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, ImageObserver observer) {
+        throw imagesNotSupported();
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, int width, int height, ImageObserver observer) {
+        throw imagesNotSupported();
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, Color bgcolor, ImageObserver observer) {
+        throw imagesNotSupported();
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, int width, int height, Color bgcolor, ImageObserver observer) {
+        throw imagesNotSupported();
+    }
+
+    @Override
+    public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2, ImageObserver observer) {
+        throw imagesNotSupported();
+    }
+
+    @Override
+    public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2, Color bgcolor, ImageObserver observer) {
+        throw imagesNotSupported();
+    }
+
+    @Override
+    public void copyArea(int x, int y, int width, int height, int dx, int dy) {
+        throw new UnsupportedOperationException("copyArea is not supported in SVG output");
+    }
+
+    private static UnsupportedOperationException imagesNotSupported() {
+        return new UnsupportedOperationException("Images are not supported in SVG output");
+    }
+
+    // -- state
+
+    @Override
+    public Graphics create() {
+        return new SvgGraphics2D(this);
+    }
+
+    @Override
+    public void dispose() {
+        metrics.dispose();
+    }
+
+    @Override
+    public Color getColor() {
+        return color;
+    }
+
+    @Override
+    public void setColor(Color color) {
+        if (color != null) {
+            this.color = color;
+        }
+    }
+
+    @Override
+    public Paint getPaint() {
+        return color;
+    }
+
+    @Override
+    public void setPaint(Paint paint) {
+        // only solid colours are supported
+        if (paint instanceof Color) {
+            this.color = (Color) paint;
+        }
+    }
+
+    @Override
+    public void setPaintMode() {
+    }
+
+    @Override
+    public void setXORMode(Color c1) {
+        throw new UnsupportedOperationException("XOR mode is not supported in SVG output");
+    }
+
+    @Override
+    public Color getBackground() {
+        return background;
+    }
+
+    @Override
+    public void setBackground(Color color) {
+        this.background = color;
+    }
+
+    @Override
+    public Composite getComposite() {
+        return AlphaComposite.SrcOver;
+    }
+
+    @Override
+    public void setComposite(Composite comp) {
+    }
+
+    @Override
+    public Stroke getStroke() {
+        return stroke;
+    }
+
+    @Override
+    public void setStroke(Stroke stroke) {
+        this.stroke = stroke;
+    }
+
+    @Override
+    public Font getFont() {
+        return metrics.getFont();
+    }
+
+    @Override
+    public void setFont(Font font) {
+        metrics.setFont(font);
+    }
+
+    @Override
+    public FontMetrics getFontMetrics(Font font) {
+        return metrics.getFontMetrics(font);
+    }
+
+    @Override
+    public FontRenderContext getFontRenderContext() {
+        return metrics.getFontRenderContext();
+    }
+
+    @Override
+    public void setRenderingHint(RenderingHints.Key hintKey, Object hintValue) {
+        metrics.setRenderingHint(hintKey, hintValue);
+    }
+
+    @Override
+    public Object getRenderingHint(RenderingHints.Key hintKey) {
+        return metrics.getRenderingHint(hintKey);
+    }
+
+    @Override
+    public void setRenderingHints(Map<?, ?> hints) {
+        metrics.setRenderingHints(hints);
+    }
+
+    @Override
+    public void addRenderingHints(Map<?, ?> hints) {
+        metrics.addRenderingHints(hints);
+    }
+
+    @Override
+    public RenderingHints getRenderingHints() {
+        return metrics.getRenderingHints();
+    }
+
+    @Override
+    public GraphicsConfiguration getDeviceConfiguration() {
+        return metrics.getDeviceConfiguration();
+    }
+
+    @Override
+    public boolean hit(Rectangle rect, Shape shape, boolean onStroke) {
+        Shape hitShape = onStroke ? stroke.createStrokedShape(shape) : shape;
+        return transform.createTransformedShape(hitShape).intersects(rect);
+    }
+
+    // -- transform; the font metrics are unaffected, as they are for a raster
+
+    @Override
+    public void translate(int x, int y) {
+        transform.translate(x, y);
+    }
+
+    @Override
+    public void translate(double tx, double ty) {
+        transform.translate(tx, ty);
+    }
+
+    @Override
+    public void rotate(double theta) {
+        transform.rotate(theta);
+    }
+
+    @Override
+    public void rotate(double theta, double x, double y) {
+        transform.rotate(theta, x, y);
+    }
+
+    @Override
+    public void scale(double sx, double sy) {
+        transform.scale(sx, sy);
+    }
+
+    @Override
+    public void shear(double shx, double shy) {
+        transform.shear(shx, shy);
+    }
+
+    @Override
+    public void transform(AffineTransform tx) {
+        transform.concatenate(tx);
+    }
+
+    @Override
+    public void setTransform(AffineTransform tx) {
+        transform = new AffineTransform(tx);
+    }
+
+    @Override
+    public AffineTransform getTransform() {
+        return new AffineTransform(transform);
+    }
+
+    // -- clip
+
+    @Override
+    public Rectangle getClipBounds() {
+        Shape userClip = getClip();
+        return userClip == null ? null : userClip.getBounds();
+    }
+
+    @Override
+    public void clipRect(int x, int y, int width, int height) {
+        clip(new Rectangle(x, y, width, height));
+    }
+
+    @Override
+    public void setClip(int x, int y, int width, int height) {
+        setClip(new Rectangle(x, y, width, height));
+    }
+
+    @Override
+    public Shape getClip() {
+        if (clip == null) {
+            return null;
+        }
+        try {
+            return transform.createInverse().createTransformedShape(clip);
+        } catch (NoninvertibleTransformException ex) {
+            return null;
+        }
+    }
+
+    @Override
+    public void setClip(Shape shape) {
+        this.clip = shape == null ? null : deviceShape(shape);
+    }
+
+    @Override
+    public void clip(Shape shape) {
+        if (clip == null) {
+            setClip(shape);
+            return;
+        }
+
+        Shape deviceShape = deviceShape(shape);
+        if (clip instanceof Rectangle2D && deviceShape instanceof Rectangle2D) {
+            Rectangle2D intersection = new Rectangle2D.Double();
+            Rectangle2D.intersect((Rectangle2D) clip, (Rectangle2D) deviceShape, intersection);
+            clip = intersection;
+        } else {
+            Area intersection = new Area(clip);
+            intersection.intersect(new Area(deviceShape));
+            clip = intersection;
+        }
+    }
+
+    /**
+     * Close the clip group left open by the last element drawn, if any. Call once drawing is finished, before the
+     * enclosing {@code </svg>} is written.
+     */
+    public void closeClip() {
+        if (output.clip != null) {
+            output.clip = null;
+            write("</g>\n");
+        }
+    }
+
+    private Shape deviceShape(Shape shape) {
+        // a translated rectangle stays a rectangle, which keeps the common case cheap to intersect and compare
+        if (shape instanceof Rectangle2D && transform.getType() <= AffineTransform.TYPE_TRANSLATION) {
+            Rectangle2D rect = (Rectangle2D) shape;
+            return new Rectangle2D.Double(rect.getX() + transform.getTranslateX(), rect.getY() + transform.getTranslateY(),
+                    rect.getWidth(), rect.getHeight());
+        }
+        return transform.createTransformedShape(shape);
+    }
+
+    private void applyClip() {
+        // consecutive elements under the same clip share one group
+        if (Objects.equals(output.clip, clip)) {
+            return;
+        }
+        closeClip();
+        if (clip != null) {
+            String id = "clip" + ++output.clips;
+            String shape;
+            if (clip instanceof Rectangle2D) {
+                Rectangle2D rect = (Rectangle2D) clip;
+                shape = "<rect x=\"" + number(rect.getX()) + "\" y=\"" + number(rect.getY()) + "\" width=\"" + number(rect.getWidth())
+                        + "\" height=\"" + number(rect.getHeight()) + "\"/>";
+            } else {
+                shape = "<path d=\"" + path(clip) + "\"/>";
+            }
+            write("<clipPath id=\"" + id + "\">" + shape + "</clipPath>\n<g clip-path=\"url(#" + id + ")\">\n");
+            output.clip = clip;
+        }
+    }
+
+    // -- SVG
+
+    private void element(CharSequence start, boolean filled) {
+        StringBuilder element = new StringBuilder(start);
+        if (filled) {
+            element.append(" fill=\"").append(colour(color)).append('"').append(opacity("fill-opacity"));
+        } else {
+            element.append(" fill=\"none\" stroke=\"").append(colour(color)).append('"').append(opacity("stroke-opacity")).append(strokeAttributes());
+        }
+        element.append(transformAttribute()).append("/>\n");
+        applyClip();
+        write(element);
+    }
+
+    private void write(CharSequence text) {
+        try {
+            output.writer.append(text);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static String rect(int x, int y, int width, int height) {
+        return "<rect x=\"" + x + "\" y=\"" + y + "\" width=\"" + width + "\" height=\"" + height + "\"";
+    }
+
+    private static String ellipse(int x, int y, int width, int height) {
+        return "<ellipse cx=\"" + number(x + width / 2.0) + "\" cy=\"" + number(y + height / 2.0)
+                + "\" rx=\"" + number(width / 2.0) + "\" ry=\"" + number(height / 2.0) + "\"";
+    }
+
+    private static String points(int[] xPoints, int[] yPoints, int nPoints) {
+        StringBuilder points = new StringBuilder();
+        for (int i = 0; i < nPoints; i++) {
+            if (i > 0) {
+                points.append(' ');
+            }
+            points.append(xPoints[i]).append(',').append(yPoints[i]);
+        }
+        return points.toString();
+    }
+
+    private static String path(Shape shape) {
+        StringBuilder path = new StringBuilder();
+        double[] coords = new double[6];
+        for (PathIterator iterator = shape.getPathIterator(null); !iterator.isDone(); iterator.next()) {
+            int segment = iterator.currentSegment(coords);
+            switch (segment) {
+                case PathIterator.SEG_MOVETO -> path.append('M').append(number(coords[0])).append(' ').append(number(coords[1]));
+                case PathIterator.SEG_LINETO -> path.append('L').append(number(coords[0])).append(' ').append(number(coords[1]));
+                case PathIterator.SEG_QUADTO -> path.append('Q').append(number(coords[0])).append(' ').append(number(coords[1]))
+                        .append(' ').append(number(coords[2])).append(' ').append(number(coords[3]));
+                case PathIterator.SEG_CUBICTO -> path.append('C').append(number(coords[0])).append(' ').append(number(coords[1]))
+                        .append(' ').append(number(coords[2])).append(' ').append(number(coords[3]))
+                        .append(' ').append(number(coords[4])).append(' ').append(number(coords[5]));
+                case PathIterator.SEG_CLOSE -> path.append('Z');
+                default -> throw new IllegalStateException("Unknown path segment " + segment);
+            }
+        }
+        return path.toString();
+    }
+
+    private String strokeAttributes() {
+        if (!(stroke instanceof BasicStroke)) {
+            return "";
+        }
+
+        BasicStroke basicStroke = (BasicStroke) stroke;
+        StringBuilder attributes = new StringBuilder();
+        if (basicStroke.getLineWidth() != 1) {
+            attributes.append(" stroke-width=\"").append(number(basicStroke.getLineWidth())).append('"');
+        }
+        if (basicStroke.getEndCap() != BasicStroke.CAP_BUTT) {
+            attributes.append(" stroke-linecap=\"").append(basicStroke.getEndCap() == BasicStroke.CAP_ROUND ? "round" : "square").append('"');
+        }
+        if (basicStroke.getLineJoin() != BasicStroke.JOIN_MITER) {
+            attributes.append(" stroke-linejoin=\"").append(basicStroke.getLineJoin() == BasicStroke.JOIN_ROUND ? "round" : "bevel").append('"');
+        }
+        float[] dashes = basicStroke.getDashArray();
+        if (dashes != null) {
+            attributes.append(" stroke-dasharray=\"");
+            for (int i = 0; i < dashes.length; i++) {
+                attributes.append(i > 0 ? "," : "").append(number(dashes[i]));
+            }
+            attributes.append('"');
+            if (basicStroke.getDashPhase() != 0) {
+                attributes.append(" stroke-dashoffset=\"").append(number(basicStroke.getDashPhase())).append('"');
+            }
+        }
+        return attributes.toString();
+    }
+
+    private String transformAttribute() {
+        if (transform.isIdentity()) {
+            return "";
+        }
+        return " transform=\"matrix(" + number(transform.getScaleX()) + ' ' + number(transform.getShearY()) + ' '
+                + number(transform.getShearX()) + ' ' + number(transform.getScaleY()) + ' '
+                + number(transform.getTranslateX()) + ' ' + number(transform.getTranslateY()) + ")\"";
+    }
+
+    private String opacity(String attribute) {
+        return color.getAlpha() == 255 ? "" : " " + attribute + "=\"" + number(color.getAlpha() / 255.0) + '"';
+    }
+
+    static String colour(Color color) {
+        return String.format("#%06x", color.getRGB() & 0xffffff);
+    }
+
+    private static String fontFamily(Font font) {
+        // Java's logical fonts have a generic equivalent in SVG
+        String family = font.getFamily(Locale.ROOT);
+        return switch (family) {
+            case Font.DIALOG, Font.SANS_SERIF, Font.DIALOG_INPUT -> family + ", sans-serif";
+            case Font.SERIF -> family + ", serif";
+            case Font.MONOSPACED -> family + ", monospace";
+            default -> family;
+        };
+    }
+
+    static String number(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        String number = String.format(Locale.ROOT, "%.3f", value);
+        int end = number.length();
+        while (number.charAt(end - 1) == '0') {
+            end--;
+        }
+        return number.substring(0, number.charAt(end - 1) == '.' ? end - 1 : end);
+    }
+
+    static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> escaped.append("&amp;");
+                case '<' -> escaped.append("&lt;");
+                case '>' -> escaped.append("&gt;");
+                case '"' -> escaped.append("&quot;");
+                default -> {
+                    // control characters are not allowed in XML 1.0
+                    if (c >= 0x20 || c == '\t') {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * The writer and the clip group open in it, shared with every graphics created from this one.
+     */
+    private static final class Output {
+
+        private final Writer writer;
+
+        private Shape clip;
+
+        private int clips;
+
+        private Output(Writer writer) {
+            this.writer = writer;
+        }
+
+    }
+
+}
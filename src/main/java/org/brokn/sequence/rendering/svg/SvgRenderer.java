@@ -0,0 +1,92 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.rendering.svg;
+
+import com.google.common.flogger.FluentLogger;
+import org.brokn.sequence.rendering.ImageRenderer;
+import org.brokn.sequence.rendering.RenderableDiagram;
+
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Renders a diagram as SVG, streaming each element to the writer as it is drawn; no raster is ever created, so the
+ * output is resolution independent and the memory used does not grow with the size of the diagram.
+ */
+public final class SvgRenderer {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+    public static final String SVG_FORMAT = "svg";
+
+    public static final String FILE_EXTENSION = ".svg";
+
+    private SvgRenderer() {
+    }
+
+    /**
+     * Write the diagram, black on white, as an SVG document of its measured size.
+     */
+    public static void writeSvg(RenderableDiagram diagram, Writer writer) throws IOException {
+        Dimension size = ImageRenderer.measure(diagram);
+        if (size.width <= 0 || size.height <= 0) {
+            throw new IllegalArgumentException("Diagram is too small to create an image " + size);
+        }
+
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + size.width + "\" height=\"" + size.height
+                + "\" viewBox=\"0 0 " + size.width + " " + size.height + "\">\n");
+
+        SvgGraphics2D g = new SvgGraphics2D(writer);
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, size.width, size.height);
+            g.setColor(Color.BLACK);
+            diagram.draw(g);
+            g.closeClip();
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } finally {
+            g.dispose();
+        }
+
+        writer.write("</svg>\n");
+        writer.flush();
+    }
+
+    public static void writeSvg(RenderableDiagram diagram, File outputFile) throws IOException {
+        logger.atInfo().log("Writing diagram to [%s]", outputFile);
+        try (Writer writer = Files.newBufferedWriter(outputFile.toPath(), StandardCharsets.UTF_8)) {
+            writeSvg(diagram, writer);
+        }
+    }
+
+    /**
+     * Whether the file should be written as SVG, rather than PNG, i.e. its name ends .svg.
+     */
+    public static boolean isSvgFile(File file) {
+        return file.getName().toLowerCase().endsWith(FILE_EXTENSION);
+    }
+
+}
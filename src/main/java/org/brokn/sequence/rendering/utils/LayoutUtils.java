@@ -20,8 +20,6 @@ package org.brokn.sequence.rendering.utils;
 import org.brokn.sequence.model.Lane;
 
 import java.awt.*;
-import java.awt.font.FontRenderContext;
-import java.awt.font.GlyphVector;
 
 public final class LayoutUtils {
 
@@ -37,20 +35,24 @@ public final class LayoutUtils {
         }
     }
 
+    /**
+     * The advance width of the text, as SwingUtilities.computeStringWidth gives it, without loading Swing.
+     */
+    public static int getStringWidth(Graphics g, Font font, String text) {
+        return text == null || text.isEmpty() ? 0 : TextMetrics.shared().stringWidth(g, font, text);
+    }
+
+    public static int getStringWidth(FontMetrics fontMetrics, String text) {
+        return text == null || text.isEmpty() ? 0 : TextMetrics.shared().stringWidth(fontMetrics, text);
+    }
+
     public static Rectangle getStringBounds(Graphics2D g2, Font font, String str) {
         if (str == null) {
             // null string will have 0 height
             return new Rectangle(0, 0, 0, 0);
         }
 
-        Font originalFont = g2.getFont();
-        g2.setFont(font);
-        FontRenderContext frc = g2.getFontRenderContext();
-        GlyphVector gv = g2.getFont().createGlyphVector(frc, str);
-        Rectangle pixelBounds = gv.getPixelBounds(null, 0, 0);
-
-        g2.setFont(originalFont);
-        return pixelBounds;
+        return TextMetrics.shared().stringBounds(g2, font, str);
     }
 
     public static void drawStringWithFont(Graphics g, Font font, int x, int y, String text) {
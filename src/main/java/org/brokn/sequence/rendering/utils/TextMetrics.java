@@ -0,0 +1,197 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.rendering.utils;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Bounded, least-recently-used caches of text widths, text pixel bounds and derived fonts, shared by the renderables,
+ * so that repainting a diagram which hasn't changed does almost no text shaping.
+ * Widths and bounds are keyed by the font, the font render context (which hints such as fractional metrics change)
+ * and the text.
+ */
+public final class TextMetrics {
+
+    /**
+     * Default number of widths, and of bounds, held by the cache.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 16 * 1024;
+
+    // a diagram uses a handful of fonts, a lane name fitted to its lane a few more
+    private static final int MAXIMUM_DERIVED_FONTS = 1024;
+
+    private static final TextMetrics SHARED = new TextMetrics(DEFAULT_MAXIMUM_SIZE);
+
+    private final Cache<TextKey, Integer> widths;
+
+    private final Cache<TextKey, Rectangle> bounds;
+
+    private final Cache<FontKey, Font> derivedFonts;
+
+    public TextMetrics(int maximumSize) {
+        this.widths = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+        this.bounds = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+        this.derivedFonts = CacheBuilder.newBuilder().maximumSize(MAXIMUM_DERIVED_FONTS).recordStats().build();
+    }
+
+    /**
+     * The cache shared by every diagram in this process.
+     */
+    public static TextMetrics shared() {
+        return SHARED;
+    }
+
+    /**
+     * The advance width of the text in the font, as the graphics' FontMetrics give it.
+     */
+    public int stringWidth(Graphics g, Font font, String text) {
+        TextKey key = new TextKey(font, ((Graphics2D) g).getFontRenderContext(), text);
+        return get(widths, key, () -> g.getFontMetrics(font).stringWidth(text));
+    }
+
+    /**
+     * The advance width of the text in the font metrics' font.
+     */
+    public int stringWidth(FontMetrics fontMetrics, String text) {
+        TextKey key = new TextKey(fontMetrics.getFont(), fontMetrics.getFontRenderContext(), text);
+        return get(widths, key, () -> fontMetrics.stringWidth(text));
+    }
+
+    /**
+     * The pixel bounds of the text in the font, drawn at the origin.
+     */
+    public Rectangle stringBounds(Graphics2D g, Font font, String text) {
+        FontRenderContext fontRenderContext = g.getFontRenderContext();
+        TextKey key = new TextKey(font, fontRenderContext, text);
+        // Rectangle is mutable, so each caller gets a copy
+        return new Rectangle(get(bounds, key, () -> font.createGlyphVector(fontRenderContext, text).getPixelBounds(null, 0, 0)));
+    }
+
+    public Font deriveFont(Font font, int style, float size) {
+        return get(derivedFonts, new FontKey(font, style, size), () -> font.deriveFont(style, size));
+    }
+
+    public Font deriveFont(Font font, float size) {
+        return deriveFont(font, font.getStyle(), size);
+    }
+
+    public CacheStats getWidthStats() {
+        return widths.stats();
+    }
+
+    public CacheStats getBoundsStats() {
+        return bounds.stats();
+    }
+
+    public CacheStats getDerivedFontStats() {
+        return derivedFonts.stats();
+    }
+
+    private static <K, V> V get(Cache<K, V> cache, K key, Callable<V> loader) {
+        try {
+            return cache.get(key, loader);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Failed to measure text", ex.getCause());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("widths", describe(widths))
+                .add("bounds", describe(bounds))
+                .add("derivedFonts", describe(derivedFonts))
+                .toString();
+    }
+
+    private static String describe(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return String.format("%d entries, %.1f%% of %d hits, %d evictions",
+                cache.size(), stats.hitRate() * 100, stats.requestCount(), stats.evictionCount());
+    }
+
+    private static final class TextKey {
+
+        private final Font font;
+        private final FontRenderContext fontRenderContext;
+        private final String text;
+        private final int hashCode;
+
+        TextKey(Font font, FontRenderContext fontRenderContext, String text) {
+            this.font = font;
+            this.fontRenderContext = fontRenderContext;
+            this.text = text;
+            this.hashCode = Objects.hashCode(font, fontRenderContext, text);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            TextKey that = (TextKey) o;
+            return hashCode == that.hashCode &&
+                    Objects.equal(text, that.text) &&
+                    Objects.equal(font, that.font) &&
+                    Objects.equal(fontRenderContext, that.fontRenderContext);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class FontKey {
+
+        private final Font font;
+        private final int style;
+        private final float size;
+
+        FontKey(Font font, int style, float size) {
+            this.font = font;
+            this.style = style;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            FontKey that = (FontKey) o;
+            return style == that.style &&
+                    Float.compare(that.size, size) == 0 &&
+                    Objects.equal(font, that.font);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(font, style, size);
+        }
+    }
+
+}
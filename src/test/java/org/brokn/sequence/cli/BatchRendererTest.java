@@ -0,0 +1,163 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.cli;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchRendererTest {
+
+    private static final String SOURCE = "Client -> Server: Request\nServer --> Client: Response\n";
+
+    @TempDir
+    Path directory;
+
+    private final ByteArrayOutputStream errors = new ByteArrayOutputStream();
+    private PrintStream originalErr;
+
+    @BeforeEach
+    void setUp() {
+        this.originalErr = System.err;
+        System.setErr(new PrintStream(errors, true, StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.setErr(originalErr);
+    }
+
+    @Test
+    void directoryExpandsToDiagramsInNameOrder() throws IOException {
+        Path b = write("b.seq", SOURCE);
+        Path a = write("a.seqb", "");
+        write("notes.txt", "");
+        Files.createDirectory(directory.resolve("nested.seq"));
+
+        assertEquals(List.of(a, b), BatchRenderer.expand(directory.toString()));
+    }
+
+    @Test
+    void globsExpandToMatchingFiles() throws IOException {
+        Path a1 = write("a1.seq", SOURCE);
+        Path a2 = write("a2.seq", SOURCE);
+        Path b = write("b.seqb", "");
+        write("a1.txt", "");
+
+        assertEquals(List.of(a1, a2), BatchRenderer.expand(directory.resolve("*.seq").toString()));
+        assertEquals(List.of(a1, a2), BatchRenderer.expand(directory.resolve("a?.seq").toString()));
+        assertEquals(List.of(a1, a2, b), BatchRenderer.expand(directory.resolve("*.{seq,seqb}").toString()));
+    }
+
+    @Test
+    void unmatchedInputsAreNamed() {
+        IOException missingFile = assertThrows(IOException.class, () -> BatchRenderer.expand(directory.resolve("missing.seq").toString()));
+        assertTrue(missingFile.getMessage().contains("no such file"));
+
+        Path missingDirectory = directory.resolve("missing");
+        IOException missingGlobDirectory = assertThrows(IOException.class, () -> BatchRenderer.expand(missingDirectory.resolve("*.seq").toString()));
+        assertTrue(missingGlobDirectory.getMessage().contains(missingDirectory.toString()));
+
+        IOException noMatch = assertThrows(IOException.class, () -> BatchRenderer.expand(directory.resolve("*.seq").toString()));
+        assertTrue(noMatch.getMessage().contains("*.seq"));
+    }
+
+    @Test
+    void missingInputIsReportedByPath() {
+        String missing = directory.resolve("missing.seq").toString();
+        assertEquals(1, renderer().run(new String[]{missing}, directory.resolve("out.png")));
+
+        List<String> lines = errorLines();
+        assertTrue(lines.get(0).startsWith(missing + ": error: "), lines.toString());
+        assertTrue(lines.contains("error: no diagrams to render"), lines.toString());
+    }
+
+    @Test
+    void clashingOutputsAreReportedNotOverwritten() throws IOException {
+        Path first = write("one/diagram.seq", SOURCE);
+        Path second = write("two/diagram.seq", SOURCE);
+        Path output = directory.resolve("out");
+
+        assertEquals(1, renderer().run(new String[]{first.toString(), second.toString()}, output));
+
+        assertTrue(Files.exists(output.resolve("diagram.png")));
+        List<String> lines = errorLines();
+        assertEquals(1, lines.size(), lines.toString());
+        assertTrue(lines.get(0).startsWith(second + ": error: output"), lines.toString());
+    }
+
+    @Test
+    void errorsAreReportedInInputOrder() throws IOException {
+        String[] inputs = new String[8];
+        for (int i = 0; i < inputs.length; i++) {
+            // every other input is a corrupt compiled diagram
+            inputs[i] = (i % 2 == 0 ? write("in" + i + ".seq", SOURCE) : write("in" + i + ".seqb", "corrupt")).toString();
+        }
+        Path output = directory.resolve("out");
+
+        assertEquals(inputs.length / 2, renderer().run(inputs, output));
+
+        List<String> failed = errorLines().stream().map(line -> line.substring(0, line.indexOf(": error: "))).collect(Collectors.toList());
+        assertEquals(List.of(inputs[1], inputs[3], inputs[5], inputs[7]), failed);
+        assertTrue(Files.exists(output.resolve("in6.png")));
+        assertFalse(Files.exists(output.resolve("in7.png")));
+    }
+
+    @Test
+    void exitCodes() throws IOException {
+        Path good = write("good.seq", SOURCE);
+        Path bad = write("bad.seqb", "corrupt");
+
+        assertEquals(HeadlessCli.EXIT_OK, new HeadlessCli().run(new String[]{"-i", good.toString(), "-o", directory.resolve("good.png").toString()}));
+        assertEquals(HeadlessCli.EXIT_FAILED, new HeadlessCli().run(new String[]{"-i", bad.toString(), "-o", directory.resolve("bad.png").toString()}));
+        assertEquals(HeadlessCli.EXIT_FAILED, new HeadlessCli().run(new String[]{"-i", directory.resolve("missing.seq").toString(), "-o", directory.resolve("missing.png").toString()}));
+        assertEquals(HeadlessCli.EXIT_USAGE, new HeadlessCli().run(new String[]{"-i", good.toString()}));
+    }
+
+    private BatchRenderer renderer() {
+        return new BatchRenderer(false, BatchRenderer.IMAGE_EXTENSION, 4);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path path = directory.resolve(name);
+        Files.createDirectories(path.getParent());
+        return Files.writeString(path, content);
+    }
+
+    private List<String> errorLines() {
+        return Arrays.asList(errors.toString(StandardCharsets.UTF_8).split("\\R"));
+    }
+
+}
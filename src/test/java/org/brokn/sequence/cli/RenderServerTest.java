@@ -0,0 +1,224 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.cli;
+
+import org.brokn.sequence.rendering.ImageRenderer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RenderServerTest {
+
+    private static final String SOURCE = "Client -> Server: Request\nServer --> Client: Response\n";
+
+    private RenderServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.stop();
+        }
+        System.clearProperty(ImageRenderer.MAX_IMAGE_BYTES_PROPERTY);
+    }
+
+    @Test
+    void rendersPng() throws Exception {
+        int port = start(new RenderServer(0, 1, RenderServer.DEFAULT_TIMEOUT_MILLIS));
+        try (Socket socket = connect(port)) {
+            Response response = request(socket, RenderServer.PNG_FORMAT, SOURCE);
+            assertEquals(RenderServer.STATUS_OK, response.status);
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(response.body));
+            assertNotNull(image);
+
+            // the connection carries further requests
+            assertEquals(RenderServer.STATUS_OK, request(socket, RenderServer.SVG_FORMAT, SOURCE).status);
+        }
+    }
+
+    @Test
+    void unknownFormatIsAnError() throws Exception {
+        int port = start(new RenderServer(0, 1, RenderServer.DEFAULT_TIMEOUT_MILLIS));
+        try (Socket socket = connect(port)) {
+            Response response = request(socket, "gif", SOURCE);
+            assertEquals(RenderServer.STATUS_ERROR, response.status);
+            assertTrue(response.message().contains("gif"));
+        }
+    }
+
+    @Test
+    void oversizedSourceIsRejectedUnread() throws Exception {
+        int port = start(new RenderServer(0, 1, RenderServer.DEFAULT_TIMEOUT_MILLIS));
+        for (int length : new int[]{RenderServer.MAX_SOURCE_BYTES + 1, -1}) {
+            try (Socket socket = connect(port)) {
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                out.writeUTF(RenderServer.PNG_FORMAT);
+                out.writeInt(length);
+                out.flush();
+
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                Response response = read(in);
+                assertEquals(RenderServer.STATUS_ERROR, response.status);
+                assertTrue(response.message().contains(String.valueOf(length)));
+                // and the connection is closed, as the rest of the request can't be skipped
+                assertEquals(-1, in.read());
+            }
+        }
+    }
+
+    @Test
+    void tiledDiagramIsAnError() throws Exception {
+        System.setProperty(ImageRenderer.MAX_IMAGE_BYTES_PROPERTY, "1");
+        int port = start(new RenderServer(0, 1, RenderServer.DEFAULT_TIMEOUT_MILLIS));
+        try (Socket socket = connect(port)) {
+            Response response = request(socket, RenderServer.PNG_FORMAT, SOURCE);
+            assertEquals(RenderServer.STATUS_ERROR, response.status);
+            assertTrue(response.message().contains("too large"));
+        }
+    }
+
+    @Test
+    void busyWhenThePoolAndQueueAreFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int port = start(new RenderServer(0, 1, RenderServer.DEFAULT_TIMEOUT_MILLIS, (format, source) -> {
+            started.countDown();
+            awaitUninterruptibly(release);
+            return new byte[]{1};
+        }));
+
+        try (Socket running = connect(port); Socket queued = connect(port); Socket rejected = connect(port)) {
+            send(running, RenderServer.PNG_FORMAT, SOURCE);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            send(queued, RenderServer.PNG_FORMAT, SOURCE);
+            // the queued request is accepted once its connection has been read, which this waits for
+            Thread.sleep(200);
+
+            Response busy = request(rejected, RenderServer.PNG_FORMAT, SOURCE);
+            assertEquals(RenderServer.STATUS_BUSY, busy.status);
+
+            release.countDown();
+            assertEquals(RenderServer.STATUS_OK, read(new DataInputStream(running.getInputStream())).status);
+            assertEquals(RenderServer.STATUS_OK, read(new DataInputStream(queued.getInputStream())).status);
+        }
+    }
+
+    @Test
+    void timedOutRenderIsCancelled() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        int port = start(new RenderServer(0, 1, 200, (format, source) -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException ex) {
+                interrupted.countDown();
+            }
+            return new byte[0];
+        }));
+
+        try (Socket socket = connect(port)) {
+            Response response = request(socket, RenderServer.PNG_FORMAT, SOURCE);
+            assertEquals(RenderServer.STATUS_TIMEOUT, response.status);
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private int start(RenderServer server) throws IOException {
+        this.server = server;
+        int port = server.bind();
+        Thread serving = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        serving.setDaemon(true);
+        serving.start();
+        return port;
+    }
+
+    private static Socket connect(int port) throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setSoTimeout(10_000);
+        return socket;
+    }
+
+    private static void send(Socket socket, String format, String source) throws IOException {
+        byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        out.writeUTF(format);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.flush();
+    }
+
+    private static Response request(Socket socket, String format, String source) throws IOException {
+        send(socket, format, source);
+        return read(new DataInputStream(socket.getInputStream()));
+    }
+
+    private static Response read(DataInputStream in) throws IOException {
+        byte status = in.readByte();
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        return new Response(status, body);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException ex) {
+                // keep the worker busy until released
+            }
+        }
+    }
+
+    private static final class Response {
+
+        private final byte status;
+        private final byte[] body;
+
+        Response(byte status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        String message() {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer;
+
+import org.brokn.sequence.rendering.RenderableDiagram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompiledDiagramTest {
+
+    private static final String EXAMPLE = """
+            :title Example
+            :author Someone
+            :fontsize 16
+            :date
+            Client -> Server: Request
+            Server -> Server: Parses request
+            Server ->> Service: Query
+            Service -->> Server: Data
+            Server --> Client: Response
+            Client -> Server: Request
+            Client -> Été: 日本
+            """;
+
+    // magic, version, padding, the three counts, title, author, date and font size
+    private static final int HEADER_BYTES = 33;
+
+    private final Lexer lexer = new Lexer();
+
+    @Test
+    void roundTripMatchesParse(@TempDir Path tempDir) throws IOException {
+        for (String input : new String[]{EXAMPLE, "", "Client -> Server", ":title Only a title"}) {
+            RenderableDiagram expected = this.lexer.parse(input).getDiagram();
+
+            Path file = tempDir.resolve("example" + CompiledDiagram.FILE_EXTENSION);
+            CompiledDiagram.write(expected, file);
+            assertTrue(CompiledDiagram.isCompiledDiagram(file));
+
+            ParseResult actual = CompiledDiagram.read(file);
+            assertEquals(expected.getMetaData(), actual.getDiagram().getMetaData());
+            assertEquals(expected.getLanes(), actual.getDiagram().getLanes());
+            assertEquals(expected.getInteractions(), actual.getDiagram().getInteractions());
+            assertTrue(actual.getDiagnostics().isEmpty());
+        }
+    }
+
+    @Test
+    void readRejectsOtherFiles() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompiledDiagram.write(this.lexer.parse(EXAMPLE).getDiagram(), out);
+        byte[] bytes = out.toByteArray();
+
+        // not a compiled diagram at all
+        assertThrows(IOException.class, () -> CompiledDiagram.read(ByteBuffer.wrap(EXAMPLE.getBytes())));
+
+        // a later version
+        byte[] laterVersion = bytes.clone();
+        laterVersion[5] = (byte) (CompiledDiagram.VERSION + 1);
+        assertThrows(IOException.class, () -> CompiledDiagram.read(ByteBuffer.wrap(laterVersion)));
+
+        // truncated
+        assertThrows(IOException.class, () -> CompiledDiagram.read(ByteBuffer.wrap(bytes, 0, bytes.length - 1)));
+    }
+
+    @Test
+    void readRejectsCountsBeyondTheFile() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompiledDiagram.write(this.lexer.parse(EXAMPLE).getDiagram(), out);
+        byte[] bytes = out.toByteArray();
+
+        // the string, lane and interaction counts follow the magic number and version
+        for (int offset : new int[]{8, 12, 16}) {
+            for (int count : new int[]{Integer.MAX_VALUE, -1, bytes.length}) {
+                ByteBuffer corrupt = ByteBuffer.wrap(bytes.clone());
+                corrupt.putInt(offset, count);
+                IOException ex = assertThrows(IOException.class, () -> CompiledDiagram.read(corrupt));
+                assertTrue(ex.getMessage().startsWith("Corrupt"), ex.getMessage());
+            }
+        }
+
+        // a string longer than the file
+        ByteBuffer longString = ByteBuffer.wrap(bytes.clone());
+        longString.putInt(HEADER_BYTES, Integer.MAX_VALUE);
+        assertTrue(assertThrows(IOException.class, () -> CompiledDiagram.read(longString)).getMessage().startsWith("Corrupt"));
+    }
+
+    @Test
+    void readRejectsATruncatedHeader() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompiledDiagram.write(this.lexer.parse(EXAMPLE).getDiagram(), out);
+        byte[] bytes = out.toByteArray();
+
+        for (int length = 4; length < HEADER_BYTES; length++) {
+            ByteBuffer truncated = ByteBuffer.wrap(bytes, 0, length);
+            IOException ex = assertThrows(IOException.class, () -> CompiledDiagram.read(truncated));
+            assertTrue(ex.getMessage().startsWith("Corrupt"), ex.getMessage());
+        }
+    }
+
+}
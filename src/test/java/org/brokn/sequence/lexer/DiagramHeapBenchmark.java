@@ -0,0 +1,78 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer;
+
+import org.brokn.sequence.lexer.parser.InteractionParser;
+import org.brokn.sequence.lexer.parser.LaneParser;
+import org.brokn.sequence.lexer.parser.LaneTable;
+import org.brokn.sequence.lexer.parser.MetaDataParser;
+import org.brokn.sequence.model.Interaction;
+import org.brokn.sequence.rendering.RenderableDiagram;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reports the heap retained by a diagram of a million interactions, as objects and as the compact model.
+ * Run from the test classpath, with a large heap: {@code java -Xmx4g -cp <test-classpath> org.brokn.sequence.lexer.DiagramHeapBenchmark}
+ */
+public class DiagramHeapBenchmark {
+
+    private static final int INTERACTIONS = 1_000_000;
+
+    public static void main(String[] args) throws IOException {
+        java.util.logging.LogManager.getLogManager().reset();
+
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < INTERACTIONS; i++) {
+            input.append("Lane").append(i % 20).append(" -> Lane").append((i * 7) % 20).append(": message number ").append(i).append('\n');
+        }
+        String text = input.toString();
+
+        long before = usedHeap();
+        RenderableDiagram objects = parseToObjects(text);
+        long objectsHeap = usedHeap() - before;
+
+        before = usedHeap();
+        RenderableDiagram compact = new Lexer().parse(new StringReader(text)).getDiagram();
+        long compactHeap = usedHeap() - before;
+
+        System.out.printf("%d interactions: objects %.1f MB, compact %.1f MB (%d, %d)%n", INTERACTIONS,
+                objectsHeap / 1e6, compactHeap / 1e6, objects.getInteractions().size(), compact.getInteractions().size());
+    }
+
+    private static RenderableDiagram parseToObjects(String text) {
+        Tokenizer.TokenizedInput tokens = new Tokenizer().tokenize(text);
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        LaneTable laneTable = new LaneParser().parseTokens(tokens.getInteractionTokens());
+        List<Interaction> interactions = new InteractionParser().parseTokens(laneTable, tokens.getInteractionTokens(), diagnostics);
+        return new RenderableDiagram(new MetaDataParser().parseTokens(tokens.getMetaDataTokens()), laneTable.getLanes(), interactions);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class IncrementalLexerTest {
+
+    private static final String EXAMPLE = """
+            :title Example
+            Client -> Server: Request
+            Server -> Server: Parses request
+            Server ->> Service: Query
+            Service -->> Server: Data
+            Server --> Client: Response
+            """;
+
+    private IncrementalLexer incrementalLexer;
+
+    @BeforeEach
+    void setUp() {
+        this.incrementalLexer = new IncrementalLexer();
+    }
+
+    @Test
+    void parseBadData() {
+        assertMatchesFullParse(null);
+        assertMatchesFullParse("");
+        assertMatchesFullParse("some invalid text");
+    }
+
+    @Test
+    void parseEdits() {
+        assertMatchesFullParse(EXAMPLE);
+
+        // edit a message in the middle
+        assertMatchesFullParse(EXAMPLE.replace("Query", "Query all"));
+
+        // insert a self-referential interaction, shifting the indices of everything after it
+        assertMatchesFullParse(EXAMPLE.replace("Server ->> Service", "Service -> Service: Warm up\nServer ->> Service"));
+
+        // introduce a new lane before the existing ones, re-indexing every lane
+        assertMatchesFullParse("Browser -> Client: Click\n" + EXAMPLE);
+
+        // delete lines
+        assertMatchesFullParse(EXAMPLE.replace("Server -> Server: Parses request\n", ""));
+
+        // half-typed line, then completed
+        assertMatchesFullParse(EXAMPLE.replace("Server ->> Service: Query", "Server ->"));
+        assertMatchesFullParse(EXAMPLE.replace("Server ->> Service: Query", "Server -> Cache"));
+
+        // metadata
+        assertMatchesFullParse(":author Someone\n" + EXAMPLE.replace(":title Example", ":title Renamed"));
+
+        assertMatchesFullParse(EXAMPLE);
+        assertMatchesFullParse("");
+    }
+
+    @Test
+    void parseEditsMovingFirstAppearances() {
+        assertMatchesFullParse(EXAMPLE);
+
+        // the first line naming Service is deleted, so it is first found later and the lanes keep their order
+        assertMatchesFullParse(EXAMPLE.replace("Server ->> Service: Query\n", ""));
+
+        // Service is named before Server for the first time, swapping their indices
+        assertMatchesFullParse(EXAMPLE.replace("Client -> Server: Request", "Client -> Service: Request"));
+
+        // a lane named only once, in the middle, is renamed, then the line is moved to the end
+        assertMatchesFullParse(EXAMPLE.replace("Server -> Server: Parses request", "Server -> Cache: Lookup"));
+        assertMatchesFullParse(EXAMPLE.replace("Server -> Server: Parses request\n", "") + "Server -> Cache: Lookup\n");
+
+        // lines inserted before the first appearance of every lane, naming none of them, then all removed again
+        assertMatchesFullParse("\n\n" + EXAMPLE.replace(":title Example\n", ""));
+        assertMatchesFullParse("\n\nServer -> Client: Early\n" + EXAMPLE.replace(":title Example\n", ""));
+        assertMatchesFullParse(EXAMPLE);
+    }
+
+    @Test
+    void editsNamingKnownLanesKeepTheLanes() {
+        ParseResult before = this.incrementalLexer.parse(EXAMPLE);
+
+        // known lanes only, after their first appearance, above and below lines whose first appearances shift
+        String edited = EXAMPLE.replace("Server -> Server: Parses request", "Server -> Client: Ack\nClient -> Server: Retry");
+        assertMatchesFullParse(edited);
+        ParseResult after = this.incrementalLexer.parse(edited.replace("Ack", "Acknowledged"));
+        for (int i = 0; i < before.getDiagram().getLanes().size(); i++) {
+            assertSame(before.getDiagram().getLanes().get(i), after.getDiagram().getLanes().get(i));
+        }
+
+        // and an edit after the shifted lines still finds every lane where it is first named
+        assertMatchesFullParse(edited.replace("Service -->> Server: Data", "Service -->> Client: Data"));
+    }
+
+    private void assertMatchesFullParse(String text) {
+        ParseResult expected = new Lexer().parse(text);
+        ParseResult actual = this.incrementalLexer.parse(text);
+
+        assertEquals(expected.getDiagram().getMetaData(), actual.getDiagram().getMetaData());
+        assertEquals(expected.getDiagram().getLanes(), actual.getDiagram().getLanes());
+        assertEquals(expected.getDiagram().getInteractions(), actual.getDiagram().getInteractions());
+        assertEquals(expected.getDiagnostics(), actual.getDiagnostics());
+    }
+
+}
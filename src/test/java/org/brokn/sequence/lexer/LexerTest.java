@@ -0,0 +1,127 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LexerTest {
+
+    private static final String EXAMPLE = """
+            :title Example
+            :date
+            Client -> Server: Request
+            Server -> Server: Parses request
+            Server ->> Service: Query
+            Service -->> Server: Data
+            Server --> Client: Response
+            Browser -> Client -> Server
+            """;
+
+    private Lexer lexer;
+
+    @BeforeEach
+    void setUp() {
+        this.lexer = new Lexer();
+    }
+
+    @Test
+    void parseReaderMatchesParseString() throws IOException {
+        assertSameModel(this.lexer.parse(""), this.lexer.parse(new StringReader("")));
+        assertSameModel(this.lexer.parse("some invalid text"), this.lexer.parse(new StringReader("some invalid text")));
+        assertSameModel(this.lexer.parse(EXAMPLE), this.lexer.parse(new StringReader(EXAMPLE)));
+    }
+
+    @Test
+    void parseMappedMatchesParseString(@TempDir Path tempDir) throws IOException {
+        Path file = Files.writeString(tempDir.resolve("example.seq"), EXAMPLE);
+        assertSameModel(this.lexer.parse(EXAMPLE), this.lexer.parseMapped(file));
+        assertSameModel(this.lexer.parse(EXAMPLE), this.lexer.parse(file));
+    }
+
+    @Test
+    void parseParallelMatchesParseString() {
+        String input = EXAMPLE + "Client -> Proxy: Request\nProxy -> :\nProxy -> Server\n:author Someone\n:fontsize x\nA -> B -> C\n";
+        for (int chunkSize : new int[]{1, 16, 64, 1024}) {
+            assertSameModel(this.lexer.parse(input), this.lexer.parseParallel(input, chunkSize));
+        }
+        assertSameModel(this.lexer.parse(""), this.lexer.parseParallel(""));
+    }
+
+    @Test
+    void parseParallelGivesUpWhenInterrupted() {
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> this.lexer.parseParallel(EXAMPLE, 16));
+            // the interrupt is kept for the caller, e.g. a parse or render worker which was cancelled
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+
+        // and the pool is left able to parse
+        assertSameModel(this.lexer.parse(EXAMPLE), this.lexer.parseParallel(EXAMPLE, 16));
+    }
+
+    @Test
+    void parseSkipsBadLines() {
+        ParseResult result = this.lexer.parse("Client -> Server: Request\n-> Server\nClient ->   \n:fontsize big\nServer --> Client: Response");
+
+        // the bad lines do not stop the following interaction from being parsed
+        assertEquals(2, result.getDiagram().getInteractions().size());
+        assertEquals(1, result.getDiagram().getInteractions().get(1).getIndex());
+        assertEquals(List.of(
+                new Diagnostic(2, 1, Diagnostic.Severity.WARNING, "Interaction has no 'from' Lane"),
+                new Diagnostic(3, 10, Diagnostic.Severity.WARNING, "Interaction has no 'to' Lane"),
+                new Diagnostic(4, 0, Diagnostic.Severity.WARNING, "Font size [big] is not a number")), result.getDiagnostics());
+        assertFalse(result.hasErrors());
+
+        result = this.lexer.parse("Client -> Server\nClient -> Proxy -> Server\nA -> B -> C");
+        assertEquals(1, result.getDiagram().getInteractions().size());
+        assertEquals(List.of(
+                new Diagnostic(2, 17, Diagnostic.Severity.ERROR, "Interaction has a second interaction token [->]"),
+                new Diagnostic(3, 8, Diagnostic.Severity.ERROR, "Interaction has a second interaction token [->]")), result.getDiagnostics());
+        assertTrue(result.hasErrors());
+
+        // the same for each way of parsing
+        assertSameModel(result, this.lexer.parseParallel("Client -> Server\nClient -> Proxy -> Server\nA -> B -> C", 1));
+        assertSameModel(result, new IncrementalLexer().parse("Client -> Server\nClient -> Proxy -> Server\nA -> B -> C"));
+    }
+
+    private static void assertSameModel(ParseResult expected, ParseResult actual) {
+        assertEquals(expected.getDiagram().getMetaData(), actual.getDiagram().getMetaData());
+        assertEquals(expected.getDiagram().getLanes(), actual.getDiagram().getLanes());
+        assertEquals(expected.getDiagram().getInteractions(), actual.getDiagram().getInteractions());
+        assertEquals(expected.getDiagnostics(), actual.getDiagnostics());
+    }
+
+}
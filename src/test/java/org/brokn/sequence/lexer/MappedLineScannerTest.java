@@ -0,0 +1,73 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MappedLineScannerTest {
+
+    private static final String INPUT = ":title \u00dcn\u00efcode Example\r\n\r\n# comment\r\nClient -> Server: R\u00e9quest\n  :date\nServer --> Client\nno interaction here\nService -> Service";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void scanMatchesBufferedReader() throws IOException {
+        Path file = tempDir.resolve("input.seq");
+        Files.write(file, INPUT.getBytes(StandardCharsets.UTF_8));
+
+        List<String> expected = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new StringReader(INPUT));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (Tokenizer.isMetaData(line) || Tokenizer.isInteraction(line)) {
+                expected.add(lineNumber + ":" + line);
+            }
+        }
+
+        // small regions force lines to be carried over, and long lines to grow the mapped region
+        for (long regionSize : new long[]{1, 2, 7, 16, 1024}) {
+            List<String> actual = new ArrayList<>();
+            int lineCount = new MappedLineScanner(regionSize).scan(file, (number, text) -> actual.add(number + ":" + text));
+            assertEquals(expected, actual);
+            assertEquals(lineNumber, lineCount);
+        }
+    }
+
+    @Test
+    void scanEmptyFile() throws IOException {
+        Path file = Files.createFile(tempDir.resolve("empty.seq"));
+        assertEquals(0, new MappedLineScanner().scan(file, (number, text) -> { }));
+    }
+
+}
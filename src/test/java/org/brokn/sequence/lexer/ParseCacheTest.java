@@ -0,0 +1,75 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParseCacheTest {
+
+    private final Lexer lexer = new Lexer();
+
+    @Test
+    void getReturnsCachedResult() {
+        ParseCache parseCache = new ParseCache(ParseCache.DEFAULT_MAXIMUM_WEIGHT);
+
+        ParseResult first = parseCache.get("Client -> Server", lexer::parse);
+        ParseResult second = parseCache.get("Client -> Server", lexer::parse);
+        ParseResult other = parseCache.get("Server -> Client", lexer::parse);
+
+        assertSame(first, second);
+        assertNotSame(first, other);
+        assertEquals(1, parseCache.getHitCount());
+        assertEquals(2, parseCache.getMissCount());
+    }
+
+    @Test
+    void getEvictsByWeight() {
+        String firstSource = "Client -> Server";
+        String secondSource = "Server -> Client";
+        ParseCache parseCache = new ParseCache(ParseCache.weigh(firstSource, lexer.parse(firstSource))
+                + ParseCache.weigh(secondSource, lexer.parse(secondSource)) - 1);
+
+        ParseResult first = parseCache.get(firstSource, lexer::parse);
+        parseCache.get(secondSource, lexer::parse);
+
+        // the two entries together are over the maximum weight, so the least recently used is evicted
+        assertEquals(1, parseCache.size());
+        assertNotSame(first, parseCache.get("Client -> Server", lexer::parse));
+        assertEquals(3, parseCache.getMissCount());
+    }
+
+    @Test
+    void weightCountsTheDrawnDiagram() {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            source.append("Client -> Server: Request ").append(i).append('\n');
+        }
+        ParseResult parseResult = lexer.parse(source.toString());
+
+        // a diagram's objects, layout and display list come to many times the size of its source
+        assertTrue(ParseCache.weigh(source.toString(), parseResult) > 10L * source.length());
+        assertEquals(2L * source.length() + parseResult.getDiagram().estimateRetainedBytes(), ParseCache.weigh(source.toString(), parseResult));
+    }
+
+}
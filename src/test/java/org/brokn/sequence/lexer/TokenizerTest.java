@@ -0,0 +1,56 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TokenizerTest {
+
+    private Tokenizer tokenizer;
+
+    @BeforeEach
+    void setUp() {
+        this.tokenizer = new Tokenizer();
+    }
+
+    @Test
+    void tokenizeBadData() {
+        assertEquals(0, this.tokenizer.tokenize(null).getMetaDataTokens().size());
+        assertEquals(0, this.tokenizer.tokenize(null).getInteractionTokens().size());
+        assertEquals(0, this.tokenizer.tokenize("").getInteractionTokens().size());
+        assertEquals(0, this.tokenizer.tokenize("some invalid text").getInteractionTokens().size());
+    }
+
+    @Test
+    void tokenizeSortsLines() {
+        Tokenizer.TokenizedInput tokens = this.tokenizer.tokenize(":title Example\n\n# comment\nClient -> Server: Request\n :date\nServer --> Client");
+
+        assertEquals(2, tokens.getMetaDataTokens().size());
+        assertEquals(new Token(Token.Type.META_DATA, 1, ":title Example"), tokens.getMetaDataTokens().get(0));
+        assertEquals(new Token(Token.Type.META_DATA, 5, " :date"), tokens.getMetaDataTokens().get(1));
+
+        assertEquals(2, tokens.getInteractionTokens().size());
+        assertEquals(new Token(Token.Type.INTERACTION, 4, "Client -> Server: Request"), tokens.getInteractionTokens().get(0));
+        assertEquals(new Token(Token.Type.INTERACTION, 6, "Server --> Client"), tokens.getInteractionTokens().get(1));
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.lexer.parser;
+
+import com.sun.management.ThreadMXBean;
+import org.brokn.sequence.lexer.Diagnostic;
+import org.brokn.sequence.model.SymbolTable;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reports the bytes allocated per line by the interaction line hot path, i.e. the Lane name and interaction parse of every line.
+ * Names and messages are interned in one symbol table per run, as they are per parse by the Lexer.
+ * Run from the test classpath: {@code java -cp <test-classpath> org.brokn.sequence.lexer.parser.InteractionParserAllocationBenchmark}
+ */
+public class InteractionParserAllocationBenchmark {
+
+    private static final List<String> LINES = List.of(
+            "Client -> Server: Request",
+            "Server -> Server: Parses request",
+            "Server ->> Service: Query",
+            "Service -->> Server: Data",
+            "Server --> Client: Response",
+            "  Browser   ->   Client  ",
+            "Client -> Proxy -> Server");
+
+    private static final int WARMUP_ITERATIONS = 200_000;
+
+    private static final int MEASURED_ITERATIONS = 1_000_000;
+
+    public static void main(String[] args) {
+        java.util.logging.LogManager.getLogManager().reset();
+        ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        LaneParser laneParser = new LaneParser();
+
+        long sink = run(laneParser, WARMUP_ITERATIONS);
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        long startNanos = System.nanoTime();
+        sink += run(laneParser, MEASURED_ITERATIONS);
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        long lines = (long) MEASURED_ITERATIONS * LINES.size();
+        System.out.printf("%d lines, %.1f bytes allocated per line, %.1f ns per line (%d)%n",
+                lines, (double) allocated / lines, (double) elapsedNanos / lines, sink);
+    }
+
+    private static long run(LaneParser laneParser, int iterations) {
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        SymbolTable symbols = new SymbolTable();
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (String line : LINES) {
+                sink += laneParser.parseLaneNames(line.trim(), symbols).size();
+                sink += InteractionParser.parseLine(line, 1, diagnostics, symbols).getRowCount();
+            }
+        }
+        return sink;
+    }
+
+}
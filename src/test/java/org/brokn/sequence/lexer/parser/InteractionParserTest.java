@@ -18,6 +18,8 @@
 package org.brokn.sequence.lexer.parser;
 
 import com.google.common.collect.Lists;
+import org.brokn.sequence.lexer.Diagnostic;
+import org.brokn.sequence.lexer.Tokenizer;
 import org.brokn.sequence.model.Interaction;
 import org.brokn.sequence.model.Interaction.Modifiers;
 import org.brokn.sequence.model.Lane;
@@ -138,4 +140,47 @@ class InteractionParserTest {
         assertTrue(parsed.get(0).getModifiers().contains(Modifiers.ASYNC));
     }
 
-}
\ No newline at end of file
+    @Test
+    void parseUnknownLane() {
+        LaneTable laneTable = LaneTable.of(Lists.newArrayList(new Lane(0, "Client")));
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        List<Interaction> parsed = this.interactionParser.parseTokens(laneTable, new Tokenizer().tokenize("Client -> Server: Request\nClient -> Client").getInteractionTokens(), diagnostics);
+
+        // the interaction with the unknown lane is skipped, but does not stop the rest being parsed
+        assertEquals(1, parsed.size());
+        assertEquals(0, parsed.get(0).getIndex());
+        assertTrue(parsed.get(0).getModifiers().contains(Modifiers.SELFREF));
+
+        assertEquals(1, diagnostics.size());
+        assertEquals(1, diagnostics.get(0).getLineNumber());
+        assertEquals(Diagnostic.Severity.ERROR, diagnostics.get(0).getSeverity());
+    }
+
+    @Test
+    void parseLine() {
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        ParsedInteraction parsed = InteractionParser.parseLine("  Client -->>  Server : Request: with detail ", 1, diagnostics);
+        assertEquals("Client", parsed.getFromName());
+        assertEquals("Server", parsed.getToName());
+        assertEquals("Request: with detail", parsed.getMessage());
+        assertTrue(parsed.getModifiers().contains(Modifiers.REPLY));
+        assertTrue(parsed.getModifiers().contains(Modifiers.ASYNC));
+
+        assertTrue(diagnostics.isEmpty());
+
+        // a second interaction token is reported once, where it starts, rather than as unknown lanes
+        assertNull(InteractionParser.parseLine("Client -> Proxy --> Server", 2, diagnostics));
+        assertEquals(List.of(new Diagnostic(2, 17, Diagnostic.Severity.ERROR, "Interaction has a second interaction token [-->]")), diagnostics);
+        diagnostics.clear();
+        assertNull(InteractionParser.parseLine("Client -> Server: see -> there", 2, diagnostics));
+        assertEquals(23, diagnostics.get(0).getColumn());
+        diagnostics.clear();
+
+        // a line without a 'to' lane is reported, not thrown
+        assertNull(InteractionParser.parseLine("Client ->   ", 3, diagnostics));
+        assertEquals(1, diagnostics.size());
+        assertEquals(3, diagnostics.get(0).getLineNumber());
+        assertEquals(10, diagnostics.get(0).getColumn());
+    }
+
+}
@@ -40,6 +40,13 @@ class LaneParserTest {
         assertEquals(0, this.laneParser.parse("").size());
     }
 
+    @Test
+    void parseLaneNames_SelfReferential() {
+        assertEquals(List.of("Server"), this.laneParser.parseLaneNames("Server -> Server: Parses request"));
+        assertEquals(List.of("Server"), this.laneParser.parseLaneNames("Server->Server"));
+        assertEquals(List.of("Client", "Server"), this.laneParser.parseLaneNames("Client -> Server: Request"));
+    }
+
     @Test
     void parseValidCase_EmptyToLane() {
         // One Lane
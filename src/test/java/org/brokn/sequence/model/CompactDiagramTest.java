@@ -0,0 +1,84 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactDiagramTest {
+
+    private final Lane client = new Lane(0, "Client");
+    private final Lane server = new Lane(1, "Server");
+
+    @Test
+    void interactionViewsMatchInteractions() {
+        List<Interaction> interactions = List.of(
+                new Interaction(client, server, "Request", 0, EnumSet.noneOf(Interaction.Modifiers.class)),
+                new Interaction(server, server, null, 1, EnumSet.of(Interaction.Modifiers.ASYNC)),
+                new Interaction(server, client, "Response", 3, EnumSet.of(Interaction.Modifiers.REPLY)));
+
+        CompactDiagram.Builder builder = new CompactDiagram.Builder(List.of(client, server));
+        interactions.forEach(builder::add);
+        CompactDiagram compactDiagram = builder.build();
+
+        assertEquals(interactions, compactDiagram.getInteractions());
+        assertEquals(3, compactDiagram.getMaxIndex().getAsInt());
+        assertTrue(compactDiagram.hasModifier(1, CompactDiagram.SELFREF));
+        assertFalse(compactDiagram.hasModifier(0, CompactDiagram.REPLY));
+        assertEquals("Response", compactDiagram.getMessage(2));
+    }
+
+    @Test
+    void builderGrows() {
+        CompactDiagram.Builder builder = new CompactDiagram.Builder(List.of(client, server));
+        for (int i = 0; i < 1000; i++) {
+            builder.add(i % 2, 1, "message " + i, i, (byte) 0);
+        }
+        CompactDiagram compactDiagram = builder.build();
+
+        assertEquals(1000, compactDiagram.size());
+        assertEquals("message 999", compactDiagram.getMessage(999));
+        assertEquals(server, compactDiagram.getFromLane(999));
+        assertTrue(compactDiagram.hasModifier(999, CompactDiagram.SELFREF));
+    }
+
+    @Test
+    void repeatedMessagesAreStoredOnce() {
+        CompactDiagram.Builder builder = new CompactDiagram.Builder(List.of(client, server));
+        for (int i = 0; i < 1000; i++) {
+            builder.add(0, 1, i % 2 == 0 ? "Request" : "200 OK", i, (byte) 0);
+        }
+        builder.add(1, 0, null, 1000, CompactDiagram.REPLY);
+        CompactDiagram compactDiagram = builder.build();
+
+        assertEquals(2, compactDiagram.getDistinctMessageCount());
+        assertEquals(compactDiagram.getMessageId(1), compactDiagram.getMessageId(999));
+        assertEquals("200 OK", compactDiagram.getMessage(999));
+        assertEquals(SymbolTable.NO_SYMBOL, compactDiagram.getMessageId(1000));
+        assertNull(compactDiagram.getMessage(1000));
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SymbolTableTest {
+
+    @Test
+    void internReturnsOneStringPerText() {
+        SymbolTable symbols = new SymbolTable();
+        int ok = symbols.intern("200 OK");
+        int client = symbols.intern("Client -> Server", 0, 6);
+
+        assertEquals(ok, symbols.intern(new String("200 OK")));
+        assertEquals(client, symbols.intern("Client"));
+        assertNotEquals(ok, client);
+        assertSame(symbols.get(ok), symbols.symbol("Server: 200 OK", 8, 14));
+        assertEquals("Client", symbols.get(client));
+        assertEquals(2, symbols.size());
+    }
+
+    @Test
+    void tableGrows() {
+        SymbolTable symbols = new SymbolTable();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("Lane " + i, symbols.symbol("Lane " + i + " -> B", 0, 5 + Integer.toString(i).length()));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, symbols.intern("Lane " + i));
+            assertEquals("Lane " + i, symbols.get(i));
+        }
+        assertEquals(1000, symbols.toArray().length);
+    }
+
+    @Test
+    void emptyText() {
+        SymbolTable symbols = new SymbolTable();
+        int empty = symbols.intern("");
+        assertEquals(empty, symbols.intern("A -> B", 1, 1));
+        assertEquals("", symbols.get(empty));
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.rendering;
+
+import org.brokn.sequence.lexer.Lexer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageRendererTest {
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty(ImageRenderer.MAX_IMAGE_BYTES_PROPERTY);
+    }
+
+    @Test
+    void tiledPngMatchesRender() throws IOException {
+        RenderableDiagram diagram = diagram(60);
+        Dimension size = ImageRenderer.measure(diagram);
+        BufferedImage expected = ImageRenderer.render(diagram);
+
+        // strips which divide the height unevenly, one row high, and taller than the diagram
+        for (int stripHeight : new int[]{97, 1, size.height + 10}) {
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            ImageRenderer.writeTiledPng(diagram, size, Math.min(stripHeight, size.height), encoded);
+            assertSamePixels(expected, ImageIO.read(new ByteArrayInputStream(encoded.toByteArray())));
+        }
+    }
+
+    @Test
+    void writePngIsTiledOverTheLimit() throws IOException {
+        RenderableDiagram diagram = diagram(60);
+        Dimension size = ImageRenderer.measure(diagram);
+        System.setProperty(ImageRenderer.MAX_IMAGE_BYTES_PROPERTY, String.valueOf(ImageRenderer.estimateImageBytes(size) - 1));
+        assertTrue(ImageRenderer.isTiled(size));
+
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ImageRenderer.writePng(diagram, encoded);
+        assertSamePixels(ImageRenderer.render(diagram), ImageIO.read(new ByteArrayInputStream(encoded.toByteArray())));
+    }
+
+    @Test
+    void renderInterruptiblyMatchesRender() throws IOException {
+        RenderableDiagram diagram = diagram(60);
+        assertTrue(ImageRenderer.measure(diagram).height > 2 * ImageRenderer.BAND_HEIGHT);
+        assertSamePixels(ImageRenderer.render(diagram), ImageRenderer.renderInterruptibly(diagram));
+    }
+
+    @Test
+    void renderInterruptiblyGivesUpWhenInterrupted() {
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(InterruptedIOException.class, () -> ImageRenderer.renderInterruptibly(diagram(60)));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void isTiled() {
+        Dimension size = new Dimension(100, 100);
+        assertFalse(ImageRenderer.isTiled(size));
+
+        System.setProperty(ImageRenderer.MAX_IMAGE_BYTES_PROPERTY, String.valueOf(ImageRenderer.estimateImageBytes(size)));
+        assertFalse(ImageRenderer.isTiled(size));
+        System.setProperty(ImageRenderer.MAX_IMAGE_BYTES_PROPERTY, String.valueOf(ImageRenderer.estimateImageBytes(size) - 1));
+        assertTrue(ImageRenderer.isTiled(size));
+
+        // more pixels than a BufferedImage can hold, whatever the limit
+        System.setProperty(ImageRenderer.MAX_IMAGE_BYTES_PROPERTY, String.valueOf(Long.MAX_VALUE));
+        assertTrue(ImageRenderer.isTiled(new Dimension(50_000, 50_000)));
+    }
+
+    private static RenderableDiagram diagram(int interactions) {
+        StringBuilder source = new StringBuilder(":title Strips\n");
+        for (int i = 0; i < interactions; i++) {
+            source.append(switch (i % 4) {
+                case 0 -> "Client -> Server: Request " + i;
+                case 1 -> "Server -> Server: Parse " + i;
+                case 2 -> "Server ->> Service: Query " + i;
+                default -> "Service --> Client: Reply " + i;
+            }).append('\n');
+        }
+        return new Lexer().parse(source.toString()).getDiagram();
+    }
+
+    static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                if (expected.getRGB(x, y) != actual.getRGB(x, y)) {
+                    assertEquals(Integer.toHexString(expected.getRGB(x, y)), Integer.toHexString(actual.getRGB(x, y)), "pixel at " + x + ", " + y);
+                }
+            }
+        }
+    }
+
+}
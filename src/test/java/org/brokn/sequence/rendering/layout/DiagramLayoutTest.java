@@ -0,0 +1,170 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.rendering.layout;
+
+import org.brokn.sequence.lexer.CompiledDiagram;
+import org.brokn.sequence.lexer.Lexer;
+import org.brokn.sequence.rendering.ImageRenderer;
+import org.brokn.sequence.rendering.RenderableDiagram;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import static org.brokn.sequence.rendering.utils.LayoutHelper.CANVAS_VERTICAL_GAP;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DiagramLayoutTest {
+
+    private static final int WHITE = Color.WHITE.getRGB();
+
+    @Test
+    void bandPaintMatchesPaint() throws IOException {
+        for (RenderableDiagram diagram : diagrams()) {
+            BufferedImage expected = paint(diagram, (g, layout) -> layout.paint(g));
+
+            // bands of a row, cutting through rows of interactions, one row of interactions, and the header's height
+            int headerHeight = headerHeight(diagram);
+            for (int bandHeight : new int[]{1, 7, CANVAS_VERTICAL_GAP, CANVAS_VERTICAL_GAP + 13, headerHeight}) {
+                BufferedImage actual = paint(diagram, (g, layout) -> {
+                    Dimension size = layout.getSize();
+                    for (int top = 0; top < size.height; top += bandHeight) {
+                        g.setClip(0, top, size.width, bandHeight);
+                        layout.paint(g);
+                    }
+                });
+                assertSamePixels(expected, actual, new Rectangle(expected.getWidth(), expected.getHeight()));
+            }
+        }
+    }
+
+    @Test
+    void clippedPaintOnlyPaintsTheClip() throws IOException {
+        for (RenderableDiagram diagram : diagrams()) {
+            BufferedImage expected = paint(diagram, (g, layout) -> layout.paint(g));
+            int width = expected.getWidth();
+            int height = expected.getHeight();
+            int headerHeight = headerHeight(diagram);
+            int row = headerHeight + 10 * CANVAS_VERTICAL_GAP;
+
+            List<Rectangle> clips = List.of(
+                    new Rectangle(0, 0, width, headerHeight),
+                    new Rectangle(0, headerHeight - 1, width, 2),
+                    new Rectangle(0, row, width, 1),
+                    new Rectangle(0, row - 20, width, 21),
+                    new Rectangle(0, row + 1, width, CANVAS_VERTICAL_GAP - 2),
+                    new Rectangle(170, row - 30, 200, 90),
+                    new Rectangle(0, height - 1, width, 1));
+            for (Rectangle clip : clips) {
+                BufferedImage actual = paint(diagram, (g, layout) -> {
+                    g.setClip(clip);
+                    layout.paint(g);
+                });
+                assertSamePixels(expected, actual, clip);
+            }
+        }
+    }
+
+    @Test
+    void paintRestoresStroke() throws IOException {
+        Stroke stroke = new BasicStroke(3);
+        for (RenderableDiagram diagram : diagrams()) {
+            paint(diagram, (g, layout) -> {
+                g.setStroke(stroke);
+                layout.paint(g);
+                assertSame(stroke, g.getStroke());
+
+                g.setClip(0, 0, 100, 300);
+                layout.paint(g);
+                assertSame(stroke, g.getStroke());
+            });
+        }
+    }
+
+    /**
+     * The same diagram from the lexer, held as a list of interactions, and read back from its compiled form, held
+     * compactly with its interaction layouts computed as they're read.
+     */
+    static List<RenderableDiagram> diagrams() throws IOException {
+        StringBuilder source = new StringBuilder(":title Layout\n:author Someone\n");
+        for (int i = 0; i < 40; i++) {
+            source.append(switch (i % 6) {
+                case 0 -> "Client -> Server: Request " + i;
+                case 1 -> "Server -> Server: Parses request " + i;
+                case 2 -> "Server ->> Service: Query";
+                case 3 -> "Service -->> Server: Data";
+                case 4 -> "Server --> Client";
+                default -> "Service -> Client: A message long enough to run past its lanes " + i;
+            }).append('\n');
+        }
+        RenderableDiagram diagram = new Lexer().parse(source.toString()).getDiagram();
+
+        ByteArrayOutputStream compiled = new ByteArrayOutputStream();
+        CompiledDiagram.write(diagram, compiled);
+        return List.of(diagram, CompiledDiagram.read(ByteBuffer.wrap(compiled.toByteArray())));
+    }
+
+    /**
+     * Paint onto a white image of the diagram's size, with a graphics prepared for the diagram and its layout.
+     */
+    static BufferedImage paint(RenderableDiagram diagram, BiConsumer<Graphics2D, DiagramLayout> painter) {
+        Dimension size = ImageRenderer.measure(diagram);
+        BufferedImage image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, size.width, size.height);
+            g.setColor(Color.BLACK);
+            diagram.prepareGraphics(g);
+            painter.accept(g, diagram.getLayout(g));
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * The pixels within the clip match, and those outside it are untouched.
+     */
+    static void assertSamePixels(BufferedImage expected, BufferedImage actual, Rectangle clip) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                int want = clip.contains(x, y) ? expected.getRGB(x, y) : WHITE;
+                if (want != actual.getRGB(x, y)) {
+                    assertEquals(Integer.toHexString(want), Integer.toHexString(actual.getRGB(x, y)), "pixel at " + x + ", " + y + " with clip " + clip);
+                }
+            }
+        }
+    }
+
+    static int headerHeight(RenderableDiagram diagram) {
+        int[] headerHeight = new int[1];
+        paint(diagram, (g, layout) -> headerHeight[0] = layout.getHeaderHeight());
+        return headerHeight[0];
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.rendering.layout;
+
+import org.brokn.sequence.rendering.RenderableDiagram;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+
+import static org.brokn.sequence.rendering.layout.DiagramLayoutTest.assertSamePixels;
+import static org.brokn.sequence.rendering.layout.DiagramLayoutTest.diagrams;
+import static org.brokn.sequence.rendering.layout.DiagramLayoutTest.headerHeight;
+import static org.brokn.sequence.rendering.layout.DiagramLayoutTest.paint;
+import static org.brokn.sequence.rendering.utils.LayoutHelper.CANVAS_VERTICAL_GAP;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DisplayListTest {
+
+    @Test
+    void replayMatchesPaint() throws IOException {
+        for (RenderableDiagram diagram : diagrams()) {
+            BufferedImage expected = paint(diagram, (g, layout) -> layout.paint(g));
+            BufferedImage actual = paint(diagram, (g, layout) -> layout.record().replay(g));
+            assertSamePixels(expected, actual, new Rectangle(expected.getWidth(), expected.getHeight()));
+        }
+    }
+
+    @Test
+    void bandReplayMatchesPaint() throws IOException {
+        for (RenderableDiagram diagram : diagrams()) {
+            BufferedImage expected = paint(diagram, (g, layout) -> layout.paint(g));
+            Rectangle whole = new Rectangle(expected.getWidth(), expected.getHeight());
+
+            // replayed through each band's clip, many times over from one recording
+            for (int bandHeight : new int[]{1, 7, CANVAS_VERTICAL_GAP, CANVAS_VERTICAL_GAP + 13}) {
+                BufferedImage actual = paint(diagram, (g, layout) -> {
+                    DisplayList displayList = layout.record();
+                    for (int top = 0; top < whole.height; top += bandHeight) {
+                        g.setClip(0, top, whole.width, bandHeight);
+                        displayList.replay(g);
+                    }
+                });
+                assertSamePixels(expected, actual, whole);
+            }
+
+            int row = headerHeight(diagram) + 10 * CANVAS_VERTICAL_GAP;
+            for (Rectangle clip : List.of(new Rectangle(0, row, whole.width, 1), new Rectangle(170, row - 30, 200, 90),
+                    new Rectangle(0, whole.height - 1, whole.width, 1))) {
+                BufferedImage actual = paint(diagram, (g, layout) -> {
+                    g.setClip(clip);
+                    layout.record().replay(g);
+                });
+                assertSamePixels(expected, actual, clip);
+            }
+        }
+    }
+
+    @Test
+    void replayRestoresFontAndStroke() throws IOException {
+        Font font = new Font(Font.SERIF, Font.ITALIC, 9);
+        Stroke stroke = new BasicStroke(3);
+        for (RenderableDiagram diagram : diagrams()) {
+            paint(diagram, (g, layout) -> {
+                DisplayList displayList = layout.record();
+                g.setFont(font);
+                g.setStroke(stroke);
+
+                displayList.replay(g);
+                assertSame(font, g.getFont());
+                assertSame(stroke, g.getStroke());
+
+                displayList.replay(g, 0, 400);
+                assertSame(font, g.getFont());
+                assertSame(stroke, g.getStroke());
+            });
+        }
+    }
+
+    @Test
+    void recordedOnceByTheDiagram() throws IOException {
+        RenderableDiagram diagram = diagrams().get(0);
+        paint(diagram, (g, layout) -> {
+            DisplayList displayList = diagram.getDisplayList(g);
+            assertSame(layout, displayList.getLayout());
+            assertSame(displayList, diagram.getDisplayList(g));
+        });
+    }
+
+}
@@ -0,0 +1,216 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.rendering.svg;
+
+import org.brokn.sequence.lexer.Lexer;
+import org.brokn.sequence.rendering.RenderableDiagram;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.awt.*;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SvgGraphics2DTest {
+
+    @Test
+    void escapesLaneAndMessageText() throws Exception {
+        Document svg = parse(svg("A&B -> <C>: say \"hi\" & <bye>\n<C> --> A&B: 'ok'\n"));
+
+        List<String> texts = texts(svg);
+        assertTrue(texts.contains("A&B"), texts.toString());
+        assertTrue(texts.contains("<C>"), texts.toString());
+        assertTrue(texts.contains("say \"hi\" & <bye>"), texts.toString());
+        assertTrue(texts.contains("'ok'"), texts.toString());
+    }
+
+    @Test
+    void escapesAttributes() {
+        assertEquals("a&amp;b &lt;c&gt; &quot;d&quot;", SvgGraphics2D.escape("a&b <c> \"d\""));
+        assertEquals("ab", SvgGraphics2D.escape("a\u0001b"));
+    }
+
+    @Test
+    void numbersIgnoreTheDefaultLocale() throws Exception {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            assertEquals("1.5", SvgGraphics2D.number(1.5));
+            assertEquals("-0.125", SvgGraphics2D.number(-0.125));
+            assertEquals("1234567", SvgGraphics2D.number(1234567));
+
+            StringWriter writer = new StringWriter();
+            SvgGraphics2D g = new SvgGraphics2D(writer);
+            g.setFont(g.getFont().deriveFont(12.5f));
+            g.setStroke(new BasicStroke(1.5f));
+            g.drawString("text", 2.25f, 3.75f);
+            g.drawLine(0, 0, 10, 10);
+            Element text = (Element) parse(document(writer)).getElementsByTagName("text").item(0);
+            assertEquals("2.25", text.getAttribute("x"));
+            assertEquals("3.75", text.getAttribute("y"));
+            assertEquals("12.5", text.getAttribute("font-size"));
+            assertTrue(writer.toString().contains("stroke-width=\"1.5\""), writer.toString());
+
+            // the rendered diagram, with its fractional font metrics, parses too
+            parse(svg("Client -> Server: Request\nServer --> Client: Reply\n"));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    void repliesAreDashed() throws Exception {
+        Document svg = parse(svg("Client -> Server: Request\nServer --> Client: Reply\n"));
+
+        // two lane lines and the request are solid, the reply is dashed
+        int solid = 0;
+        int dashed = 0;
+        NodeList lines = svg.getElementsByTagName("line");
+        for (int i = 0; i < lines.getLength(); i++) {
+            Element line = (Element) lines.item(i);
+            if (line.hasAttribute("stroke-dasharray")) {
+                assertEquals("5", line.getAttribute("stroke-dasharray"));
+                dashed++;
+            } else {
+                solid++;
+            }
+        }
+        assertEquals(1, dashed);
+        assertEquals(3, solid);
+    }
+
+    @Test
+    void clipIsWrittenAsAClipPath() throws Exception {
+        StringWriter writer = new StringWriter();
+        SvgGraphics2D g = new SvgGraphics2D(writer);
+        g.translate(5, 5);
+        g.setClip(0, 0, 10, 20);
+        assertEquals(new Rectangle(0, 0, 10, 20), g.getClipBounds());
+        g.drawLine(0, 0, 30, 30);
+        g.fillRect(0, 0, 30, 30);
+        g.clipRect(5, 5, 30, 30);
+        assertEquals(new Rectangle(5, 5, 5, 15), g.getClipBounds());
+        g.drawLine(0, 0, 30, 30);
+        g.setClip(null);
+        assertNull(g.getClipBounds());
+        g.drawLine(0, 0, 30, 30);
+        g.closeClip();
+
+        Document svg = parse(document(writer));
+        NodeList clipPaths = svg.getElementsByTagName("clipPath");
+        assertEquals(2, clipPaths.getLength());
+        // the clip is in device space, so the translation applies to it
+        assertClip(clipPaths.item(0), "5", "5", "10", "20");
+        assertClip(clipPaths.item(1), "10", "10", "5", "15");
+
+        // consecutive elements share a group, and the unclipped line is outside of every group
+        NodeList groups = svg.getElementsByTagName("g");
+        assertEquals(2, groups.getLength());
+        assertEquals("url(#clip1)", ((Element) groups.item(0)).getAttribute("clip-path"));
+        assertEquals(2, ((Element) groups.item(0)).getElementsByTagName("*").getLength());
+        assertEquals("url(#clip2)", ((Element) groups.item(1)).getAttribute("clip-path"));
+        assertEquals(1, ((Element) groups.item(1)).getElementsByTagName("*").getLength());
+        assertEquals(svg.getDocumentElement(), svg.getElementsByTagName("line").item(2).getParentNode());
+    }
+
+    @Test
+    void shapedClipIsWrittenAsAPath() throws Exception {
+        StringWriter writer = new StringWriter();
+        SvgGraphics2D g = new SvgGraphics2D(writer);
+        g.setClip(new Polygon(new int[]{0, 10, 0}, new int[]{0, 0, 10}, 3));
+        g.drawLine(0, 0, 30, 30);
+        g.closeClip();
+
+        Element path = (Element) parse(document(writer)).getElementsByTagName("clipPath").item(0).getFirstChild();
+        assertEquals("path", path.getTagName());
+        assertEquals("M0 0L10 0L0 10Z", path.getAttribute("d"));
+    }
+
+    @Test
+    void createdGraphicsShareTheClipGroup() throws Exception {
+        StringWriter writer = new StringWriter();
+        SvgGraphics2D g = new SvgGraphics2D(writer);
+        g.setClip(0, 0, 10, 10);
+        g.drawLine(0, 0, 30, 30);
+        Graphics child = g.create();
+        child.drawLine(0, 0, 30, 30);
+        child.dispose();
+        g.closeClip();
+
+        Document svg = parse(document(writer));
+        assertEquals(1, svg.getElementsByTagName("clipPath").getLength());
+        assertEquals(2, ((Element) svg.getElementsByTagName("g").item(0)).getElementsByTagName("line").getLength());
+    }
+
+    @Test
+    void unclippedDiagramHasNoClipPaths() throws Exception {
+        String svg = svg("Client -> Server: Request\nServer --> Client: Reply\n");
+        assertFalse(svg.contains("clip"), svg);
+    }
+
+    private static void assertClip(Node clipPath, String x, String y, String width, String height) {
+        Element rect = (Element) clipPath.getFirstChild();
+        assertEquals("rect", rect.getTagName());
+        assertEquals(x, rect.getAttribute("x"));
+        assertEquals(y, rect.getAttribute("y"));
+        assertEquals(width, rect.getAttribute("width"));
+        assertEquals(height, rect.getAttribute("height"));
+    }
+
+    private static String svg(String source) throws IOException {
+        RenderableDiagram diagram = new Lexer().parse(source).getDiagram();
+        StringWriter writer = new StringWriter();
+        SvgRenderer.writeSvg(diagram, writer);
+        return writer.toString();
+    }
+
+    private static String document(StringWriter elements) {
+        return "<svg xmlns=\"http://www.w3.org/2000/svg\">\n" + elements + "</svg>\n";
+    }
+
+    private static Document parse(String svg) throws ParserConfigurationException, IOException, SAXException {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(svg)));
+    }
+
+    private static List<String> texts(Document svg) {
+        List<String> texts = new ArrayList<>();
+        NodeList nodes = svg.getElementsByTagName("text");
+        for (int i = 0; i < nodes.getLength(); i++) {
+            texts.add(nodes.item(i).getTextContent());
+        }
+        return texts;
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ *     Copyright (C) 2020 rsouth (https://github.com/rsouth)
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.brokn.sequence.rendering.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextMetricsTest {
+
+    private static final Font FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 13);
+
+    private Graphics2D g;
+
+    @BeforeEach
+    void setUp() {
+        g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).createGraphics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        g.dispose();
+    }
+
+    @Test
+    void repeatedMeasurementsHitTheCache() {
+        TextMetrics textMetrics = new TextMetrics(16);
+
+        int width = textMetrics.stringWidth(g, FONT, "Request");
+        assertEquals(width, textMetrics.stringWidth(g, FONT, "Request"));
+        assertEquals(width, textMetrics.stringWidth(g.getFontMetrics(FONT), "Request"));
+        assertEquals(g.getFontMetrics(FONT).stringWidth("Request"), width);
+        assertEquals(1, textMetrics.getWidthStats().missCount());
+        assertEquals(2, textMetrics.getWidthStats().hitCount());
+
+        Rectangle bounds = textMetrics.stringBounds(g, FONT, "Request");
+        assertEquals(bounds, textMetrics.stringBounds(g, FONT, "Request"));
+        assertEquals(1, textMetrics.getBoundsStats().missCount());
+        assertEquals(1, textMetrics.getBoundsStats().hitCount());
+
+        Font derived = textMetrics.deriveFont(FONT, Font.BOLD, 20);
+        assertSame(derived, textMetrics.deriveFont(FONT, Font.BOLD, 20));
+        assertEquals(1, textMetrics.getDerivedFontStats().hitCount());
+    }
+
+    @Test
+    void renderContextsAreCachedSeparately() {
+        TextMetrics textMetrics = new TextMetrics(16);
+        // long enough for the fractional advances to add up to a different rounded width
+        String text = "Service --> Client: a reply long enough to round differently with fractional metrics";
+
+        g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_OFF);
+        int integerWidth = textMetrics.stringWidth(g, FONT, text);
+        g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        int fractionalWidth = textMetrics.stringWidth(g, FONT, text);
+
+        assertEquals(2, textMetrics.getWidthStats().missCount());
+        assertEquals(0, textMetrics.getWidthStats().hitCount());
+        assertEquals(g.getFontMetrics(FONT).stringWidth(text), fractionalWidth);
+
+        g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_OFF);
+        assertEquals(integerWidth, textMetrics.stringWidth(g, FONT, text));
+        assertEquals(g.getFontMetrics(FONT).stringWidth(text), integerWidth);
+        assertEquals(1, textMetrics.getWidthStats().hitCount());
+    }
+
+    @Test
+    void fontsAreCachedSeparately() {
+        TextMetrics textMetrics = new TextMetrics(16);
+        int plain = textMetrics.stringWidth(g, FONT, "Request");
+        int large = textMetrics.stringWidth(g, FONT.deriveFont(40f), "Request");
+
+        assertNotEquals(plain, large);
+        assertEquals(2, textMetrics.getWidthStats().missCount());
+    }
+
+    @Test
+    void entriesAreEvictedAtTheMaximumSize() {
+        int maximumSize = 8;
+        TextMetrics textMetrics = new TextMetrics(maximumSize);
+        int measured = 100;
+        for (int i = 0; i < measured; i++) {
+            textMetrics.stringWidth(g, FONT, "Message " + i);
+            textMetrics.stringBounds(g, FONT, "Message " + i);
+        }
+
+        assertTrue(textMetrics.getWidthStats().evictionCount() >= measured - maximumSize);
+        assertTrue(textMetrics.getBoundsStats().evictionCount() >= measured - maximumSize);
+
+        // the first text measured has long been evicted, so is measured again
+        textMetrics.stringWidth(g, FONT, "Message 0");
+        assertEquals(measured + 1, textMetrics.getWidthStats().missCount());
+    }
+
+    @Test
+    void stringBoundsAreACopy() {
+        TextMetrics textMetrics = new TextMetrics(16);
+        Rectangle bounds = textMetrics.stringBounds(g, FONT, "Request");
+        Rectangle expected = new Rectangle(bounds);
+
+        bounds.translate(100, 100);
+        bounds.setSize(1, 1);
+
+        Rectangle cached = textMetrics.stringBounds(g, FONT, "Request");
+        assertEquals(expected, cached);
+        assertNotSame(cached, textMetrics.stringBounds(g, FONT, "Request"));
+        assertEquals(2, textMetrics.getBoundsStats().hitCount());
+    }
+
+}